@@ -0,0 +1,155 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.dataflow.fact.VarBitSetFact;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.exp.Var;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Base class for data-flow analyses whose transfer functions are of
+ * the gen/kill form, i.e.,
+ * <ul>
+ *     <li>OUT[s] = gen[s] ∪ (IN[s] - kill[s]) for forward analyses,</li>
+ *     <li>IN[s] = gen[s] ∪ (OUT[s] - kill[s]) for backward analyses.</li>
+ * </ul>
+ * The gen and kill sets of each node are computed when the node is
+ * transferred for the first time and cached in compact form, thus
+ * {@link #transferNode} is pure set arithmetic, which does not allocate
+ * any objects for {@link VarBitSetFact}s. The cache holds the gen/kill
+ * sets of at most {@link #MAX_CACHED_NODES} nodes, so that the memory
+ * of an analysis shared by all IRs stays bounded.
+ *
+ * @param <Node> type of CFG nodes
+ * @param <E>    type of elements in the data-flow facts
+ */
+public abstract class AbstractGenKillAnalysis<Node, E> extends
+        AbstractDataflowAnalysis<Node, SetFact<E>> {
+
+    /**
+     * Maximum number of nodes whose gen/kill sets are cached.
+     * When the cache is full, it is cleared as a whole, and the gen/kill
+     * sets are re-computed on demand.
+     */
+    private static final int MAX_CACHED_NODES = 1 << 16;
+
+    /**
+     * Cached gen/kill sets. This map may be accessed by multiple solvers
+     * concurrently, as the same analysis instance is shared by all IRs.
+     */
+    private final Map<Node, GenKill<E>> genKills = new ConcurrentHashMap<>();
+
+    protected AbstractGenKillAnalysis(AnalysisConfig config) {
+        super(config);
+    }
+
+    /**
+     * @return the elements generated by given node.
+     */
+    protected abstract Collection<E> computeGen(Node node);
+
+    /**
+     * @return the elements killed by given node.
+     */
+    protected abstract Collection<E> computeKill(Node node);
+
+    @Override
+    public boolean transferNode(Node node, SetFact<E> in, SetFact<E> out) {
+        GenKill<E> genKill = getGenKill(node);
+        return isForward() ?
+                genKill.apply(in, out) :
+                genKill.apply(out, in);
+    }
+
+    private GenKill<E> getGenKill(Node node) {
+        GenKill<E> genKill = genKills.get(node);
+        if (genKill == null) {
+            if (genKills.size() >= MAX_CACHED_NODES) {
+                genKills.clear();
+            }
+            genKill = new GenKill<>(computeGen(node), computeKill(node));
+            GenKill<E> prev = genKills.putIfAbsent(node, genKill);
+            if (prev != null) {
+                genKill = prev;
+            }
+        }
+        return genKill;
+    }
+
+    /**
+     * Gen and kill sets of a node.
+     */
+    private static class GenKill<E> {
+
+        private final E[] gen;
+
+        private final E[] kill;
+
+        /**
+         * Bit masks for facts of {@link VarBitSetFact};
+         * null if the elements are not variables.
+         */
+        private final VarBitSetFact.GenKillMasks masks;
+
+        @SuppressWarnings("unchecked")
+        private GenKill(Collection<E> gen, Collection<E> kill) {
+            this.gen = (E[]) gen.toArray();
+            this.kill = (E[]) kill.toArray();
+            this.masks = areVars(gen) && areVars(kill) ?
+                    VarBitSetFact.GenKillMasks.of(
+                            (Collection<Var>) gen, (Collection<Var>) kill) :
+                    null;
+        }
+
+        private static boolean areVars(Collection<?> elems) {
+            return elems.stream().allMatch(e -> e instanceof Var);
+        }
+
+        /**
+         * Sets target to gen ∪ (source - kill).
+         *
+         * @return true if target changed as a result of the call, otherwise false.
+         */
+        private boolean apply(SetFact<E> source, SetFact<E> target) {
+            if (masks != null
+                    && source instanceof VarBitSetFact varSource
+                    && target instanceof VarBitSetFact varTarget) {
+                return varTarget.setGenKill(varSource, masks);
+            }
+            SetFact<E> oldTarget = target.copy();
+            target.set(source);
+            for (E e : kill) {
+                target.remove(e);
+            }
+            for (E e : gen) {
+                target.add(e);
+            }
+            return !target.equals(oldTarget);
+        }
+    }
+}
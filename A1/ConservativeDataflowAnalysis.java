@@ -0,0 +1,46 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+
+/**
+ * Data-flow analysis which can give a sound result for a CFG without
+ * solving it, e.g., when solving the CFG exceeds its budget
+ * (see {@code SolverBudget}).
+ *
+ * @param <Node> type of CFG nodes
+ * @param <Fact> type of data-flow facts
+ */
+public interface ConservativeDataflowAnalysis<Node, Fact>
+        extends DataflowAnalysis<Node, Fact> {
+
+    /**
+     * @return a result which over-approximates the fixed point of this
+     * analysis on given CFG. The facts of the result may be shared among
+     * nodes, so clients must not modify them.
+     */
+    DataflowResult<Node, Fact> conservativeResult(CFG<Node> cfg);
+}
@@ -22,7 +22,9 @@
 
  package pascal.taie.analysis.dataflow.analysis;
 
+ import pascal.taie.analysis.dataflow.fact.DataflowResult;
  import pascal.taie.analysis.dataflow.fact.SetFact;
+ import pascal.taie.analysis.dataflow.fact.VarBitSetFact;
  import pascal.taie.analysis.graph.cfg.CFG;
  import pascal.taie.config.AnalysisConfig;
  import pascal.taie.ir.exp.Var;
@@ -30,21 +32,35 @@
  import pascal.taie.ir.exp.RValue;
  import pascal.taie.ir.stmt.Stmt;
  
+ import java.util.ArrayList;
+ import java.util.Collection;
+ import java.util.List;
  import java.util.Optional;
- import java.util.Set;
- import java.util.stream.Collectors;
  
  
  /**
   * Implementation of classic live variable analysis.
+  * IN[B] = use[B] ∪ (OUT[B] - def[B]), i.e., use[B] is the gen set
+  * and def[B] is the kill set of B.
   */
  public class LiveVariableAnalysis extends
-         AbstractDataflowAnalysis<Stmt, SetFact<Var>> {
+         AbstractGenKillAnalysis<Stmt, Var>
+         implements InPlaceDataflowAnalysis<Stmt, SetFact<Var>>,
+         ConservativeDataflowAnalysis<Stmt, SetFact<Var>> {
  
      public static final String ID = "livevar";
  
+     /**
+      * Whether the facts are represented by {@link VarBitSetFact}.
+      * Configured by option "fact-impl", which is either "hash" (default)
+      * or "bitset".
+      */
+     private final boolean bitSetFact;
+ 
      public LiveVariableAnalysis(AnalysisConfig config) {
          super(config);
+         bitSetFact = getOptions().has("fact-impl") &&
+                 "bitset".equals(getOptions().getString("fact-impl"));
      }
  
      @Override
@@ -55,13 +71,14 @@
      @Override
      public SetFact<Var> newBoundaryFact(CFG<Stmt> cfg) {
          // TODO - finish me
-         return new SetFact();
+         return bitSetFact ? new VarBitSetFact(cfg.getIR().getVars()) : new SetFact();
      }
  
      @Override
      public SetFact<Var> newInitialFact() {
          // TODO - finish me
-         return new SetFact();
+         // bit-set facts are bound to the variables of the IR on first use
+         return bitSetFact ? new VarBitSetFact() : new SetFact();
      }
  
      @Override
@@ -71,46 +88,46 @@
      }
  
      @Override
-     public boolean transferNode(Stmt stmt, SetFact<Var> in, SetFact<Var> out) {
-         // TODO - finish me
-         // IN[B] = use[B] U (OUT[B] - def[B])
-         boolean changed = false;
- 
-         SetFact<Var> oldIn = in.copy();
-         in.clear();
- 
- //        SetFact<Var> temp = out.copy();
- //        Optional<Var> def = stmt.getDef()
- //                .filter(lValue -> lValue instanceof Var)
- //                .map(lValue -> (Var) lValue);
- //        def.ifPresent(temp::remove);
- //        in.union(temp);
+     public boolean meetIntoChanged(SetFact<Var> fact, SetFact<Var> target) {
+         return target.union(fact);
+     }
  
-         in.union(out);
-         if (stmt.getDef().isPresent()) {
-             LValue def = stmt.getDef().get();
-             if (def instanceof Var) {
-                 in.remove((Var) def);
-             }
+     /**
+      * @return a result where all variables are live at every node,
+      * so that no assignment is considered dead.
+      */
+     @Override
+     public DataflowResult<Stmt, SetFact<Var>> conservativeResult(CFG<Stmt> cfg) {
+         SetFact<Var> all = newBoundaryFact(cfg);
+         cfg.getIR().getVars().forEach(all::add);
+         DataflowResult<Stmt, SetFact<Var>> result = new DataflowResult<>();
+         for (Stmt node : cfg) {
+             result.setInFact(node, all);
+             result.setOutFact(node, all);
          }
- 
- //        Set<Var> uses = stmt.getUses().stream()
- //                .filter(rValue -> rValue instanceof Var)
- //                .map(rValue -> (Var) rValue)
- //                .collect(Collectors.toSet());
- //        in.union(new SetFact<>(uses));
- 
-         for(RValue use: stmt.getUses()) {
-             if(use instanceof Var) {
-                 in.add((Var) use);
+         return result;
+     }
+
+     @Override
+     protected Collection<Var> computeGen(Stmt stmt) {
+         // use[B]
+         List<Var> uses = new ArrayList<>();
+         for (RValue use : stmt.getUses()) {
+             if (use instanceof Var) {
+                 uses.add((Var) use);
              }
          }
+         return uses;
+     }
  
-         // Return true if IN[B] has changed
-         if(!oldIn.equals(in)) {
-             changed = true;
+     @Override
+     protected Collection<Var> computeKill(Stmt stmt) {
+         // def[B]
+         Optional<LValue> def = stmt.getDef();
+         if (def.isPresent() && def.get() instanceof Var) {
+             return List.of((Var) def.get());
          }
-         return changed;
+         return List.of();
      }
  }
  
\ No newline at end of file
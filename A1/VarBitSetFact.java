@@ -0,0 +1,418 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.ir.exp.Var;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * {@link SetFact} of variables backed by a bit vector.
+ * <p>
+ * Each variable is identified by its dense index in the containing IR
+ * (see {@link Var#getIndex()}), so union, subtraction and comparison
+ * work on whole words instead of on individual elements.
+ * The fact is bound to the variables of an IR lazily, i.e., when the
+ * first variable is added, so that it can be created without an IR
+ * at hand (e.g., by {@code newInitialFact()}).
+ * <p>
+ * All variables in one fact must come from the same IR.
+ * <p>
+ * The set of the superclass is never used. {@link SetFact} has no
+ * constructor which skips it, so every fact still carries an empty set,
+ * which nothing is ever added to.
+ */
+public class VarBitSetFact extends SetFact<Var> {
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+
+    private static final long[] EMPTY_WORDS = {};
+
+    /**
+     * Variables of the IR this fact is bound to, indexed by
+     * {@link Var#getIndex()}; null if this fact has not been bound yet.
+     */
+    private List<Var> vars;
+
+    private long[] words;
+
+    public VarBitSetFact() {
+        this.words = EMPTY_WORDS;
+    }
+
+    /**
+     * Creates an empty fact which is able to hold all variables of given IR
+     * without growing.
+     */
+    public VarBitSetFact(List<Var> vars) {
+        this.vars = vars;
+        this.words = new long[wordIndex(vars.size() - 1) + 1];
+    }
+
+    private VarBitSetFact(List<Var> vars, long[] words) {
+        this.vars = vars;
+        this.words = words;
+    }
+
+    private static int wordIndex(int bitIndex) {
+        return bitIndex >> ADDRESS_BITS_PER_WORD;
+    }
+
+    private void bind(Var var) {
+        if (vars == null) {
+            vars = var.getMethod().getIR().getVars();
+        }
+    }
+
+    private void ensureCapacity(int wordsRequired) {
+        if (words.length < wordsRequired) {
+            int capacity = vars != null
+                    ? Math.max(wordsRequired, wordIndex(vars.size() - 1) + 1)
+                    : wordsRequired;
+            words = Arrays.copyOf(words, capacity);
+        }
+    }
+
+    @Override
+    public boolean contains(Var var) {
+        int i = var.getIndex();
+        int w = wordIndex(i);
+        return w < words.length && (words[w] & (1L << i)) != 0;
+    }
+
+    @Override
+    public boolean add(Var var) {
+        bind(var);
+        int i = var.getIndex();
+        int w = wordIndex(i);
+        ensureCapacity(w + 1);
+        long old = words[w];
+        words[w] = old | (1L << i);
+        return words[w] != old;
+    }
+
+    @Override
+    public boolean remove(Var var) {
+        int i = var.getIndex();
+        int w = wordIndex(i);
+        if (w >= words.length) {
+            return false;
+        }
+        long old = words[w];
+        words[w] = old & ~(1L << i);
+        return words[w] != old;
+    }
+
+    @Override
+    public boolean removeIf(Predicate<Var> filter) {
+        boolean changed = false;
+        for (int w = 0; w < words.length; ++w) {
+            long word = words[w];
+            while (word != 0) {
+                int bit = Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                int i = (w << ADDRESS_BITS_PER_WORD) + bit;
+                if (filter.test(vars.get(i))) {
+                    words[w] &= ~(1L << bit);
+                    changed = true;
+                }
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean union(SetFact<Var> other) {
+        if (!(other instanceof VarBitSetFact that)) {
+            boolean changed = false;
+            for (Iterator<Var> it = other.stream().iterator(); it.hasNext(); ) {
+                changed |= add(it.next());
+            }
+            return changed;
+        }
+        if (vars == null) {
+            vars = that.vars;
+        }
+        long[] src = that.words;
+        ensureCapacity(src.length);
+        long changed = 0;
+        for (int w = 0; w < src.length; ++w) {
+            long old = words[w];
+            long word = old | src[w];
+            changed |= word ^ old;
+            words[w] = word;
+        }
+        return changed != 0;
+    }
+
+    @Override
+    public SetFact<Var> unionWith(SetFact<Var> other) {
+        SetFact<Var> result = copy();
+        result.union(other);
+        return result;
+    }
+
+    @Override
+    public boolean intersect(SetFact<Var> other) {
+        if (!(other instanceof VarBitSetFact that)) {
+            return removeIf(var -> !other.contains(var));
+        }
+        long[] src = that.words;
+        long changed = 0;
+        for (int w = 0; w < words.length; ++w) {
+            long old = words[w];
+            long word = w < src.length ? old & src[w] : 0L;
+            changed |= word ^ old;
+            words[w] = word;
+        }
+        return changed != 0;
+    }
+
+    @Override
+    public SetFact<Var> intersectWith(SetFact<Var> other) {
+        SetFact<Var> result = copy();
+        result.intersect(other);
+        return result;
+    }
+
+    /**
+     * Removes all variables in other fact from this fact.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean subtract(SetFact<Var> other) {
+        if (!(other instanceof VarBitSetFact that)) {
+            return removeIf(other::contains);
+        }
+        long[] src = that.words;
+        int n = Math.min(words.length, src.length);
+        long changed = 0;
+        for (int w = 0; w < n; ++w) {
+            long old = words[w];
+            long word = old & ~src[w];
+            changed |= word ^ old;
+            words[w] = word;
+        }
+        return changed != 0;
+    }
+
+    /**
+     * Sets this fact to {@code gen ∪ (source - kill)}, where gen and kill
+     * are given by masks, i.e., the transfer function of gen/kill analyses.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean setGenKill(VarBitSetFact source, GenKillMasks masks) {
+        if (vars == null) {
+            vars = source.vars != null ? source.vars : masks.vars;
+        }
+        int[] maskWords = masks.words;
+        int n = maskWords.length == 0 ? source.words.length
+                : Math.max(source.words.length, maskWords[maskWords.length - 1] + 1);
+        ensureCapacity(n);
+        long[] src = source.words;
+        long changed = 0;
+        for (int w = 0, m = 0; w < words.length; ++w) {
+            long word = w < src.length ? src[w] : 0L;
+            if (m < maskWords.length && maskWords[m] == w) {
+                word = (word & ~masks.kill[m]) | masks.gen[m];
+                ++m;
+            }
+            changed |= word ^ words[w];
+            words[w] = word;
+        }
+        return changed != 0;
+    }
+
+    @Override
+    public void set(SetFact<Var> other) {
+        if (other instanceof VarBitSetFact that) {
+            if (vars == null) {
+                vars = that.vars;
+            }
+            ensureCapacity(that.words.length);
+            System.arraycopy(that.words, 0, words, 0, that.words.length);
+            Arrays.fill(words, that.words.length, words.length, 0L);
+        } else {
+            clear();
+            union(other);
+        }
+    }
+
+    @Override
+    public VarBitSetFact copy() {
+        return new VarBitSetFact(vars, words.clone());
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(words, 0L);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Stream<Var> stream() {
+        return BitSet.valueOf(words).stream().mapToObj(vars::get);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (long word : words) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    @Override
+    public void forEach(Consumer<Var> action) {
+        for (int w = 0; w < words.length; ++w) {
+            long word = words[w];
+            while (word != 0) {
+                int bit = Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                action.accept(vars.get((w << ADDRESS_BITS_PER_WORD) + bit));
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof VarBitSetFact that)) {
+            return false;
+        }
+        long[] longer = words, shorter = that.words;
+        if (longer.length < shorter.length) {
+            longer = that.words;
+            shorter = words;
+        }
+        for (int w = 0; w < shorter.length; ++w) {
+            if (longer[w] != shorter[w]) {
+                return false;
+            }
+        }
+        for (int w = shorter.length; w < longer.length; ++w) {
+            if (longer[w] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        // trailing zero words must not affect the hash code,
+        // as facts of different capacities may be equal
+        long h = 1234;
+        for (int w = words.length; --w >= 0; ) {
+            h ^= words[w] * (w + 1);
+        }
+        return (int) ((h >> 32) ^ h);
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        forEach(var -> joiner.add(var.toString()));
+        return joiner.toString();
+    }
+
+    /**
+     * Compact gen and kill sets for {@link #setGenKill}. Only the words
+     * that contain at least one gen or kill bit are stored, so that
+     * the masks of a statement take space proportional to the number of
+     * variables it defines and uses, rather than to the size of the IR.
+     */
+    public static final class GenKillMasks {
+
+        private final List<Var> vars;
+
+        /**
+         * Word indexes in ascending order.
+         */
+        private final int[] words;
+
+        private final long[] gen;
+
+        private final long[] kill;
+
+        private GenKillMasks(List<Var> vars, int[] words, long[] gen, long[] kill) {
+            this.vars = vars;
+            this.words = words;
+            this.gen = gen;
+            this.kill = kill;
+        }
+
+        /**
+         * Creates masks for given gen and kill variables, which must
+         * come from the same IR.
+         */
+        public static GenKillMasks of(Collection<Var> gen, Collection<Var> kill) {
+            TreeMap<Integer, long[]> masks = new TreeMap<>();
+            List<Var> vars = null;
+            for (Var var : gen) {
+                vars = var.getMethod().getIR().getVars();
+                masks.computeIfAbsent(wordIndex(var.getIndex()), w -> new long[2])[0]
+                        |= 1L << var.getIndex();
+            }
+            for (Var var : kill) {
+                vars = var.getMethod().getIR().getVars();
+                masks.computeIfAbsent(wordIndex(var.getIndex()), w -> new long[2])[1]
+                        |= 1L << var.getIndex();
+            }
+            int[] words = new int[masks.size()];
+            long[] genMasks = new long[masks.size()];
+            long[] killMasks = new long[masks.size()];
+            int i = 0;
+            for (Map.Entry<Integer, long[]> e : masks.entrySet()) {
+                words[i] = e.getKey();
+                genMasks[i] = e.getValue()[0];
+                killMasks[i] = e.getValue()[1];
+                ++i;
+            }
+            return new GenKillMasks(vars, words, genMasks, killMasks);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.cfg;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Basic block of a {@link BlockCFG}, i.e., a maximal straight-line
+ * sequence of CFG nodes: control only enters at the first node and
+ * only leaves at the last node.
+ *
+ * @param <N> type of CFG nodes
+ */
+public class BasicBlock<N> {
+
+    private final int index;
+
+    private final List<N> nodes = new ArrayList<>();
+
+    private final Set<BasicBlock<N>> preds = new LinkedHashSet<>();
+
+    private final Set<BasicBlock<N>> succs = new LinkedHashSet<>();
+
+    BasicBlock(int index) {
+        this.index = index;
+    }
+
+    /**
+     * @return the index of this block in its {@link BlockCFG}.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return the nodes in this block in execution order.
+     */
+    public List<N> getNodes() {
+        return Collections.unmodifiableList(nodes);
+    }
+
+    public N getFirst() {
+        return nodes.get(0);
+    }
+
+    public N getLast() {
+        return nodes.get(nodes.size() - 1);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public Set<BasicBlock<N>> getPreds() {
+        return Collections.unmodifiableSet(preds);
+    }
+
+    public Set<BasicBlock<N>> getSuccs() {
+        return Collections.unmodifiableSet(succs);
+    }
+
+    void addNode(N node) {
+        nodes.add(node);
+    }
+
+    void addPred(BasicBlock<N> pred) {
+        preds.add(pred);
+    }
+
+    void addSucc(BasicBlock<N> succ) {
+        succs.add(succ);
+    }
+
+    @Override
+    public String toString() {
+        return "B" + index + nodes;
+    }
+}
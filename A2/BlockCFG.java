@@ -0,0 +1,155 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.cfg;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Basic-block view of a {@link CFG}. The entry and the exit of the CFG
+ * always form singleton blocks of their own.
+ * <p>
+ * The view is computed once from the CFG and does not reflect later
+ * changes of the CFG.
+ *
+ * @param <N> type of CFG nodes
+ */
+public class BlockCFG<N> {
+
+    private final CFG<N> cfg;
+
+    private final List<BasicBlock<N>> blocks = new ArrayList<>();
+
+    private final Map<N, BasicBlock<N>> node2Block;
+
+    /**
+     * Position of each node in its block.
+     */
+    private final Map<N, Integer> node2Position;
+
+    private BlockCFG(CFG<N> cfg) {
+        this.cfg = cfg;
+        int size = cfg.getNodes().size() * 4 / 3 + 1;
+        this.node2Block = new HashMap<>(size);
+        this.node2Position = new HashMap<>(size);
+    }
+
+    /**
+     * Builds the basic-block view of given CFG.
+     */
+    public static <N> BlockCFG<N> of(CFG<N> cfg) {
+        BlockCFG<N> blockCFG = new BlockCFG<>(cfg);
+        blockCFG.build();
+        return blockCFG;
+    }
+
+    private void build() {
+        for (N node : cfg) {
+            if (isLeader(node)) {
+                buildBlock(node);
+            }
+        }
+        // nodes on a cycle that has no leader, which can only happen
+        // in unreachable code, e.g., an isolated a -> b -> a
+        for (N node : cfg) {
+            if (!node2Block.containsKey(node)) {
+                buildBlock(node);
+            }
+        }
+        for (BasicBlock<N> block : blocks) {
+            for (N succ : cfg.getSuccsOf(block.getLast())) {
+                BasicBlock<N> succBlock = node2Block.get(succ);
+                block.addSucc(succBlock);
+                succBlock.addPred(block);
+            }
+        }
+    }
+
+    private boolean isLeader(N node) {
+        if (cfg.isEntry(node) || cfg.isExit(node)
+                || cfg.getPredsOf(node).size() != 1) {
+            return true;
+        }
+        N pred = cfg.getPredsOf(node).iterator().next();
+        return cfg.isEntry(pred) || cfg.getSuccsOf(pred).size() != 1;
+    }
+
+    private void buildBlock(N leader) {
+        BasicBlock<N> block = new BasicBlock<>(blocks.size());
+        blocks.add(block);
+        N node = leader;
+        while (true) {
+            node2Block.put(node, block);
+            node2Position.put(node, block.size());
+            block.addNode(node);
+            if (cfg.isEntry(node) || cfg.getSuccsOf(node).size() != 1) {
+                break;
+            }
+            N succ = cfg.getSuccsOf(node).iterator().next();
+            if (isLeader(succ) || node2Block.containsKey(succ)) {
+                break;
+            }
+            node = succ;
+        }
+    }
+
+    public CFG<N> getCFG() {
+        return cfg;
+    }
+
+    /**
+     * @return all blocks, indexed by {@link BasicBlock#getIndex()}.
+     */
+    public List<BasicBlock<N>> getBlocks() {
+        return Collections.unmodifiableList(blocks);
+    }
+
+    public int getNumberOfBlocks() {
+        return blocks.size();
+    }
+
+    public BasicBlock<N> getEntry() {
+        return node2Block.get(cfg.getEntry());
+    }
+
+    public BasicBlock<N> getExit() {
+        return node2Block.get(cfg.getExit());
+    }
+
+    /**
+     * @return the block containing given node.
+     */
+    public BasicBlock<N> getBlockOf(N node) {
+        return node2Block.get(node);
+    }
+
+    /**
+     * @return the position of given node in its block.
+     */
+    public int getPositionOf(N node) {
+        return node2Position.get(node);
+    }
+}
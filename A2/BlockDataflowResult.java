@@ -0,0 +1,254 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.BasicBlock;
+import pascal.taie.analysis.graph.cfg.BlockCFG;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data-flow result which only stores the facts at the boundaries of
+ * basic blocks, i.e., the fact before the first node (head fact) and
+ * the fact after the last node (tail fact) of each block.
+ * The facts of the other nodes are recomputed on demand by replaying
+ * the transfer functions of the block from its head (for forward
+ * analyses) or tail (for backward analyses), when they are queried.
+ * <p>
+ * The facts of the nodes inside a block can only be queried, not set.
+ * <p>
+ * In lean mode (see {@link #leanCopyOf}), only the facts on the incoming
+ * side of each block are kept (head facts for forward analyses, tail
+ * facts for backward ones), i.e., one fact per block head or join point,
+ * and the facts on the other side are replayed as well. The replayed
+ * facts of the most recently queried blocks are cached.
+ *
+ * @param <Node> type of CFG nodes
+ * @param <Fact> type of data-flow facts
+ */
+class BlockDataflowResult<Node, Fact> extends DataflowResult<Node, Fact> {
+
+    private final DataflowAnalysis<Node, Fact> analysis;
+
+    private final BlockCFG<Node> blockCFG;
+
+    private final Object[] headFacts;
+
+    private final Object[] tailFacts;
+
+    /**
+     * Maximum number of blocks whose replayed facts are cached.
+     */
+    private static final int REPLAY_CACHE_SIZE = 32;
+
+    /**
+     * Facts of the nodes in the most recently replayed blocks.
+     */
+    private final Map<BasicBlock<Node>, BlockFacts<Fact>> replayed =
+            Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(
+                        Map.Entry<BasicBlock<Node>, BlockFacts<Fact>> eldest) {
+                    return size() > REPLAY_CACHE_SIZE;
+                }
+            });
+
+    BlockDataflowResult(DataflowAnalysis<Node, Fact> analysis,
+                        BlockCFG<Node> blockCFG) {
+        // the facts are kept per block, so the maps of the superclass
+        // are never used and need not be allocated
+        super(Collections.emptyMap(), Collections.emptyMap());
+        this.analysis = analysis;
+        this.blockCFG = blockCFG;
+        this.headFacts = new Object[blockCFG.getNumberOfBlocks()];
+        this.tailFacts = new Object[blockCFG.getNumberOfBlocks()];
+    }
+
+    /**
+     * Creates a lean result with the same facts as given result, i.e.,
+     * which keeps only the head facts (tail facts for backward analyses)
+     * of the blocks. The boundary fact is kept as well, as it is not
+     * computed by a transfer function.
+     */
+    static <Node, Fact> BlockDataflowResult<Node, Fact> leanCopyOf(
+            DataflowAnalysis<Node, Fact> analysis, BlockCFG<Node> blockCFG,
+            DataflowResult<Node, Fact> result) {
+        BlockDataflowResult<Node, Fact> lean = new BlockDataflowResult<>(analysis, blockCFG);
+        boolean forward = analysis.isForward();
+        for (BasicBlock<Node> block : blockCFG.getBlocks()) {
+            if (forward) {
+                lean.setHeadFact(block, result.getInFact(block.getFirst()));
+            } else {
+                lean.setTailFact(block, result.getOutFact(block.getLast()));
+            }
+        }
+        if (forward) {
+            BasicBlock<Node> entry = blockCFG.getEntry();
+            lean.setTailFact(entry, result.getOutFact(entry.getLast()));
+        } else {
+            BasicBlock<Node> exit = blockCFG.getExit();
+            lean.setHeadFact(exit, result.getInFact(exit.getFirst()));
+        }
+        return lean;
+    }
+
+    /**
+     * Turns this result into lean mode, i.e., drops the tail facts
+     * (head facts for backward analyses) except the boundary fact.
+     */
+    void makeLean() {
+        if (analysis.isForward()) {
+            Object boundary = tailFacts[blockCFG.getEntry().getIndex()];
+            Arrays.fill(tailFacts, null);
+            tailFacts[blockCFG.getEntry().getIndex()] = boundary;
+        } else {
+            Object boundary = headFacts[blockCFG.getExit().getIndex()];
+            Arrays.fill(headFacts, null);
+            headFacts[blockCFG.getExit().getIndex()] = boundary;
+        }
+        replayed.clear();
+    }
+
+    BlockCFG<Node> getBlockCFG() {
+        return blockCFG;
+    }
+
+    /**
+     * @return the fact before the first node of given block.
+     */
+    @SuppressWarnings("unchecked")
+    Fact getHeadFact(BasicBlock<Node> block) {
+        return (Fact) headFacts[block.getIndex()];
+    }
+
+    void setHeadFact(BasicBlock<Node> block, Fact fact) {
+        headFacts[block.getIndex()] = fact;
+    }
+
+    /**
+     * @return the fact after the last node of given block.
+     */
+    @SuppressWarnings("unchecked")
+    Fact getTailFact(BasicBlock<Node> block) {
+        return (Fact) tailFacts[block.getIndex()];
+    }
+
+    void setTailFact(BasicBlock<Node> block, Fact fact) {
+        tailFacts[block.getIndex()] = fact;
+    }
+
+    @Override
+    public Fact getInFact(Node node) {
+        BasicBlock<Node> block = blockCFG.getBlockOf(node);
+        if (block == null) {
+            return null;
+        }
+        int pos = blockCFG.getPositionOf(node);
+        return pos == 0 && getHeadFact(block) != null ?
+                getHeadFact(block) : replay(block).inFacts[pos];
+    }
+
+    @Override
+    public void setInFact(Node node, Fact fact) {
+        BasicBlock<Node> block = blockCFG.getBlockOf(node);
+        if (blockCFG.getPositionOf(node) != 0) {
+            throw new UnsupportedOperationException(
+                    "Cannot set IN fact of " + node + " inside " + block);
+        }
+        setHeadFact(block, fact);
+        replayed.remove(block);
+    }
+
+    @Override
+    public Fact getOutFact(Node node) {
+        BasicBlock<Node> block = blockCFG.getBlockOf(node);
+        if (block == null) {
+            return null;
+        }
+        int pos = blockCFG.getPositionOf(node);
+        return pos == block.size() - 1 && getTailFact(block) != null ?
+                getTailFact(block) : replay(block).outFacts[pos];
+    }
+
+    @Override
+    public void setOutFact(Node node, Fact fact) {
+        BasicBlock<Node> block = blockCFG.getBlockOf(node);
+        if (blockCFG.getPositionOf(node) != block.size() - 1) {
+            throw new UnsupportedOperationException(
+                    "Cannot set OUT fact of " + node + " inside " + block);
+        }
+        setTailFact(block, fact);
+        replayed.remove(block);
+    }
+
+    private BlockFacts<Fact> replay(BasicBlock<Node> block) {
+        return replayed.computeIfAbsent(block, this::doReplay);
+    }
+
+    @SuppressWarnings("unchecked")
+    private BlockFacts<Fact> doReplay(BasicBlock<Node> block) {
+        List<Node> nodes = block.getNodes();
+        int last = nodes.size() - 1;
+        Fact[] inFacts = (Fact[]) new Object[nodes.size()];
+        Fact[] outFacts = (Fact[]) new Object[nodes.size()];
+        if (analysis.isForward()) {
+            Fact fact = getHeadFact(block);
+            for (int i = 0; i < last; ++i) {
+                inFacts[i] = fact;
+                fact = analysis.newInitialFact();
+                analysis.transferNode(nodes.get(i), inFacts[i], fact);
+                outFacts[i] = fact;
+            }
+            inFacts[last] = fact;
+            outFacts[last] = getTailFact(block);
+            if (outFacts[last] == null) {
+                outFacts[last] = analysis.newInitialFact();
+                analysis.transferNode(nodes.get(last), fact, outFacts[last]);
+            }
+        } else {
+            Fact fact = getTailFact(block);
+            for (int i = last; i > 0; --i) {
+                outFacts[i] = fact;
+                fact = analysis.newInitialFact();
+                analysis.transferNode(nodes.get(i), fact, outFacts[i]);
+                inFacts[i] = fact;
+            }
+            outFacts[0] = fact;
+            inFacts[0] = getHeadFact(block);
+            if (inFacts[0] == null) {
+                inFacts[0] = analysis.newInitialFact();
+                analysis.transferNode(nodes.get(0), inFacts[0], fact);
+            }
+        }
+        return new BlockFacts<>(inFacts, outFacts);
+    }
+
+    private record BlockFacts<Fact>(Fact[] inFacts, Fact[] outFacts) {
+    }
+}
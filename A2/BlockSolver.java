@@ -0,0 +1,157 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.BasicBlock;
+import pascal.taie.analysis.graph.cfg.BlockCFG;
+import pascal.taie.analysis.graph.cfg.CFG;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Work-list solver which works on basic blocks instead of single nodes.
+ * Only the facts at the block boundaries are stored and propagated;
+ * inside a block, the transfer functions of the nodes are composed,
+ * passing temporary facts from one node to the next.
+ * The facts of the nodes inside blocks are recomputed on demand
+ * by the resulting {@link BlockDataflowResult}.
+ */
+class BlockSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    BlockSolver(DataflowAnalysis<Node, Fact> analysis) {
+        super(analysis);
+    }
+
+    /**
+     * Block results store facts per block, which cannot be patched
+     * per node, thus the CFG is solved from scratch.
+     */
+    @Override
+    public DataflowResult<Node, Fact> solveIncrementally(
+            CFG<Node> cfg, DataflowResult<Node, Fact> previous,
+            Function<Node, Node> previousNodes, Collection<Node> changed) {
+        return solve(cfg);
+    }
+
+    @Override
+    protected DataflowResult<Node, Fact> newResult(CFG<Node> cfg) {
+        return new BlockDataflowResult<>(analysis, BlockCFG.of(cfg));
+    }
+
+    @Override
+    protected void initializeForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        BlockDataflowResult<Node, Fact> blockResult = (BlockDataflowResult<Node, Fact>) result;
+        BlockCFG<Node> blockCFG = blockResult.getBlockCFG();
+        for (BasicBlock<Node> block : blockCFG.getBlocks()) {
+            blockResult.setTailFact(block, block == blockCFG.getEntry() ?
+                    analysis.newBoundaryFact(cfg) : analysis.newInitialFact());
+        }
+    }
+
+    @Override
+    protected void initializeBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        BlockDataflowResult<Node, Fact> blockResult = (BlockDataflowResult<Node, Fact>) result;
+        BlockCFG<Node> blockCFG = blockResult.getBlockCFG();
+        for (BasicBlock<Node> block : blockCFG.getBlocks()) {
+            blockResult.setHeadFact(block, block == blockCFG.getExit() ?
+                    analysis.newBoundaryFact(cfg) : analysis.newInitialFact());
+        }
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        BlockDataflowResult<Node, Fact> blockResult = (BlockDataflowResult<Node, Fact>) result;
+        BlockCFG<Node> blockCFG = blockResult.getBlockCFG();
+        OrderedWorkList<BasicBlock<Node>> workList = new OrderedWorkList<>(
+                NodeOrder.reversePostOrder(blockCFG.getBlocks(),
+                        blockCFG.getEntry(), BasicBlock::getSuccs));
+        for (BasicBlock<Node> block : blockCFG.getBlocks()) {
+            if (block != blockCFG.getEntry()) {
+                workList.add(block);
+            }
+        }
+        while (!workList.isEmpty()) {
+            BasicBlock<Node> block = workList.poll();
+            countVisit();
+            Fact head = analysis.newInitialFact();
+            for (BasicBlock<Node> pred : block.getPreds()) {
+                analysis.meetInto(blockResult.getTailFact(pred), head);
+            }
+            blockResult.setHeadFact(block, head);
+            List<Node> nodes = block.getNodes();
+            int last = nodes.size() - 1;
+            Fact fact = head;
+            for (int i = 0; i < last; ++i) {
+                Fact out = analysis.newInitialFact();
+                analysis.transferNode(nodes.get(i), fact, out);
+                fact = out;
+            }
+            if (analysis.transferNode(nodes.get(last), fact,
+                    blockResult.getTailFact(block))) {
+                for (BasicBlock<Node> succ : block.getSuccs()) {
+                    workList.add(succ);
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        BlockDataflowResult<Node, Fact> blockResult = (BlockDataflowResult<Node, Fact>) result;
+        BlockCFG<Node> blockCFG = blockResult.getBlockCFG();
+        OrderedWorkList<BasicBlock<Node>> workList = new OrderedWorkList<>(
+                NodeOrder.reversePostOrder(blockCFG.getBlocks(),
+                        blockCFG.getExit(), BasicBlock::getPreds));
+        for (BasicBlock<Node> block : blockCFG.getBlocks()) {
+            if (block != blockCFG.getExit()) {
+                workList.add(block);
+            }
+        }
+        while (!workList.isEmpty()) {
+            BasicBlock<Node> block = workList.poll();
+            countVisit();
+            Fact tail = analysis.newInitialFact();
+            for (BasicBlock<Node> succ : block.getSuccs()) {
+                analysis.meetInto(blockResult.getHeadFact(succ), tail);
+            }
+            blockResult.setTailFact(block, tail);
+            List<Node> nodes = block.getNodes();
+            Fact fact = tail;
+            for (int i = nodes.size() - 1; i > 0; --i) {
+                Fact in = analysis.newInitialFact();
+                analysis.transferNode(nodes.get(i), in, fact);
+                fact = in;
+            }
+            if (analysis.transferNode(nodes.get(0),
+                    blockResult.getHeadFact(block), fact)) {
+                for (BasicBlock<Node> pred : block.getPreds()) {
+                    workList.add(pred);
+                }
+            }
+        }
+    }
+}
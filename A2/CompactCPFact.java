@@ -0,0 +1,361 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.fact.MapFact;
+import pascal.taie.ir.exp.Var;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * {@link CPFact} backed by an open-addressed hash table of primitives.
+ * <p>
+ * Variables are hashed by their dense index (see {@link Var#getIndex()})
+ * and compared by identity; values are encoded in a long, i.e., NAC is
+ * a tag bit and a constant is its int value, while UNDEF is not stored
+ * (as in {@link CPFact}). Thus meet, copy-into and equality work on the
+ * encoded values and do not allocate. {@link #get(Var)} still creates
+ * {@link Value}s for constants, as required by the {@link CPFact} API.
+ * <p>
+ * Facts of this class should be combined with each other; combining
+ * them with other {@link CPFact}s works, but falls back to the generic
+ * (slower) paths. A fact of this class is never equal to a fact of
+ * another class, as the equality of {@link CPFact} compares its own
+ * backing map, which is unused here, and cannot be made symmetric.
+ */
+public class CompactCPFact extends CPFact {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private static final long NAC = 1L << 32;
+
+    private static final long INT_MASK = 0xFFFF_FFFFL;
+
+    private Var[] keys;
+
+    private long[] values;
+
+    private int size;
+
+    public CompactCPFact() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    private CompactCPFact(int capacity) {
+        keys = new Var[capacity];
+        values = new long[capacity];
+    }
+
+    static long encode(Value value) {
+        return value.isNAC() ? NAC : value.getConstant() & INT_MASK;
+    }
+
+    static Value decode(long code) {
+        return code == NAC ? Value.getNAC() : Value.makeConstant((int) code);
+    }
+
+    static long meet(long code1, long code2) {
+        // c ⊓ c = c, otherwise the result is NAC
+        return code1 == code2 ? code1 : NAC;
+    }
+
+    private int slotOf(Var var) {
+        int h = var.getIndex() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (keys.length - 1);
+    }
+
+    /**
+     * @return the slot holding given variable, or -1 if it is absent.
+     */
+    private int find(Var var) {
+        int mask = keys.length - 1;
+        for (int i = slotOf(var); ; i = (i + 1) & mask) {
+            Var key = keys[i];
+            if (key == var) {
+                return i;
+            }
+            if (key == null) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Associates var with given encoded value.
+     *
+     * @return true if this fact changed as a result of the call.
+     */
+    private boolean put(Var var, long code) {
+        int mask = keys.length - 1;
+        int i = slotOf(var);
+        for (Var key; (key = keys[i]) != null; i = (i + 1) & mask) {
+            if (key == var) {
+                if (values[i] == code) {
+                    return false;
+                }
+                values[i] = code;
+                return true;
+            }
+        }
+        keys[i] = var;
+        values[i] = code;
+        if (++size * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        return true;
+    }
+
+    private void resize(int capacity) {
+        Var[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new Var[capacity];
+        values = new long[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; ++j) {
+            Var key = oldKeys[j];
+            if (key != null) {
+                int i = slotOf(key);
+                while (keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    /**
+     * Removes the entry at given slot, and shifts back the following
+     * entries of the probe sequence, so that lookups need no tombstones.
+     */
+    private void removeAt(int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        keys[hole] = null;
+        for (int i = (hole + 1) & mask; keys[i] != null; i = (i + 1) & mask) {
+            int home = slotOf(keys[i]);
+            // move the entry if its home slot is not in (hole, i] cyclically
+            boolean movable = hole <= i ?
+                    home <= hole || home > i :
+                    home <= hole && home > i;
+            if (movable) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                keys[i] = null;
+                hole = i;
+            }
+        }
+        --size;
+    }
+
+    @Override
+    public Value get(Var key) {
+        int i = find(key);
+        return i == -1 ? Value.getUndef() : decode(values[i]);
+    }
+
+    @Override
+    public boolean update(Var key, Value value) {
+        if (value.isUndef()) {
+            return remove(key) != null;
+        }
+        return put(key, encode(value));
+    }
+
+    @Override
+    public Value remove(Var key) {
+        int i = find(key);
+        if (i == -1) {
+            return null;
+        }
+        Value old = decode(values[i]);
+        removeAt(i);
+        return old;
+    }
+
+    @Override
+    public boolean copyFrom(MapFact<Var, Value> fact) {
+        if (fact instanceof CompactCPFact that) {
+            return copyFromExcept(that, null);
+        }
+        boolean changed = false;
+        for (Var key : fact.keySet()) {
+            changed |= update(key, fact.get(key));
+        }
+        return changed;
+    }
+
+    /**
+     * Updates this fact by all entries of given fact except the one
+     * for variable except (which may be null), i.e., OUT = IN - {(x, _)}
+     * in the transfer function of constant propagation.
+     *
+     * @return true if this fact changed as a result of the call.
+     */
+    boolean copyFromExcept(CompactCPFact fact, Var except) {
+        Var[] thatKeys = fact.keys;
+        long[] thatValues = fact.values;
+        boolean changed = false;
+        for (int i = 0; i < thatKeys.length; ++i) {
+            Var key = thatKeys[i];
+            if (key != null && key != except) {
+                changed |= put(key, thatValues[i]);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Meets given fact into this fact.
+     *
+     * @return true if this fact changed as a result of the call.
+     */
+    boolean meet(CompactCPFact fact) {
+        Var[] thatKeys = fact.keys;
+        long[] thatValues = fact.values;
+        boolean changed = false;
+        for (int i = 0; i < thatKeys.length; ++i) {
+            Var key = thatKeys[i];
+            if (key != null) {
+                int j = find(key);
+                // UNDEF ⊓ v = v
+                changed |= put(key, j == -1 ? thatValues[i]
+                        : meet(values[j], thatValues[i]));
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Sets the content of this fact to the same as given fact.
+     */
+    public void set(CompactCPFact fact) {
+        if (keys.length == fact.keys.length) {
+            System.arraycopy(fact.keys, 0, keys, 0, keys.length);
+            System.arraycopy(fact.values, 0, values, 0, values.length);
+        } else {
+            keys = fact.keys.clone();
+            values = fact.values.clone();
+        }
+        size = fact.size;
+    }
+
+    @Override
+    public CompactCPFact copy() {
+        CompactCPFact copy = new CompactCPFact(keys.length);
+        copy.set(this);
+        return copy;
+    }
+
+    @Override
+    public void clear() {
+        if (size != 0) {
+            Arrays.fill(keys, null);
+            size = 0;
+        }
+    }
+
+    @Override
+    public Set<Var> keySet() {
+        Set<Var> keySet = new HashSet<>(size * 4 / 3 + 1);
+        for (Var key : keys) {
+            if (key != null) {
+                keySet.add(key);
+            }
+        }
+        return Collections.unmodifiableSet(keySet);
+    }
+
+    @Override
+    public Stream<Map.Entry<Var, Value>> entries() {
+        return IntStream.range(0, keys.length)
+                .filter(i -> keys[i] != null)
+                .mapToObj(i -> new AbstractMap.SimpleImmutableEntry<>(
+                        keys[i], decode(values[i])));
+    }
+
+    @Override
+    public void forEach(BiConsumer<Var, Value> action) {
+        for (int i = 0; i < keys.length; ++i) {
+            if (keys[i] != null) {
+                action.accept(keys[i], decode(values[i]));
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof CompactCPFact that) {
+            if (size != that.size) {
+                return false;
+            }
+            for (int i = 0; i < keys.length; ++i) {
+                Var key = keys[i];
+                if (key != null) {
+                    int j = that.find(key);
+                    if (j == -1 || that.values[j] != values[i]) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        // the same as Map.hashCode()
+        int h = 0;
+        for (int i = 0; i < keys.length; ++i) {
+            if (keys[i] != null) {
+                h += keys[i].hashCode() ^ decode(values[i]).hashCode();
+            }
+        }
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "{", "}");
+        forEach((var, value) -> joiner.add(var + "=" + value));
+        return joiner.toString();
+    }
+}
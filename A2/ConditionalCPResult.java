@@ -0,0 +1,99 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.fact.StmtDataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Result of {@link ConditionalConstantPropagation}, which also tells
+ * the nodes and edges of the CFG that may be executed.
+ * <p>
+ * The facts of the nodes that are never executed are empty, i.e.,
+ * all variables are UNDEF there.
+ */
+public class ConditionalCPResult extends StmtDataflowResult<CPFact> {
+
+    private final CFG<Stmt> cfg;
+
+    private final Set<Stmt> executableNodes =
+            Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private final Set<Edge<Stmt>> executableEdges =
+            Collections.newSetFromMap(new IdentityHashMap<>());
+
+    ConditionalCPResult(CFG<Stmt> cfg) {
+        super(cfg);
+        this.cfg = cfg;
+    }
+
+    /**
+     * @return true if given node may be executed.
+     */
+    public boolean isExecutable(Stmt node) {
+        return executableNodes.contains(node);
+    }
+
+    /**
+     * @return true if control may flow along given edge.
+     */
+    public boolean isExecutable(Edge<Stmt> edge) {
+        return executableEdges.contains(edge);
+    }
+
+    /**
+     * @return the successors of given node along executable edges.
+     */
+    public List<Stmt> getExecutableSuccsOf(Stmt node) {
+        List<Stmt> succs = new ArrayList<>(2);
+        for (Edge<Stmt> edge : cfg.getOutEdgesOf(node)) {
+            if (executableEdges.contains(edge)) {
+                succs.add(edge.getTarget());
+            }
+        }
+        return succs;
+    }
+
+    /**
+     * @return true if given node was not executable before.
+     */
+    boolean addExecutable(Stmt node) {
+        return executableNodes.add(node);
+    }
+
+    /**
+     * @return true if given edge was not executable before.
+     */
+    boolean addExecutable(Edge<Stmt> edge) {
+        return executableEdges.add(edge);
+    }
+}
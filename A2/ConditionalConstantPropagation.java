@@ -0,0 +1,163 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.solver.SolverBudget;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.SwitchStmt;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Queue;
+
+/**
+ * Conditional engine of {@link ConstantPropagation}, which solves the
+ * facts and the executable edges of the CFG together, in the manner of
+ * sparse conditional constant propagation (Wegman and Zadeck), but on
+ * the CFG instead of on SSA form.
+ * <p>
+ * Initially only the edges leaving the entry are executable. A node is
+ * processed once one of its incoming edges is executable, and its IN fact
+ * is the meet of the OUT facts of its executable incoming edges only.
+ * The outgoing edges of a branch become executable according to the
+ * value of its condition: none while it is UNDEF, the one taken while it
+ * is a constant, and all of them when it is NAC. Hence facts never flow
+ * into provably dead code, and the constants of the code after a dead
+ * branch are not spoiled by it.
+ */
+class ConditionalConstantPropagation {
+
+    private final ConstantPropagation cp;
+
+    ConditionalConstantPropagation(ConstantPropagation cp) {
+        this.cp = cp;
+    }
+
+    ConditionalCPResult solve(CFG<Stmt> cfg) {
+        ConditionalCPResult result = new ConditionalCPResult(cfg);
+        for (Stmt node : cfg) {
+            if (cfg.isEntry(node)) {
+                result.setOutFact(node, cp.newBoundaryFact(cfg));
+            } else {
+                CPFact in = cp.newInitialFact();
+                result.setInFact(node, in);
+                // the exit does not transfer, so it shares its IN fact,
+                // which is met in place, as its OUT fact
+                result.setOutFact(node, cfg.isExit(node) ? in : cp.newInitialFact());
+            }
+        }
+        // the exit takes the index after the statements
+        int exitIndex = cfg.getIR().getStmts().size();
+        Queue<Stmt> workList = new ArrayDeque<>();
+        BitSet queued = new BitSet(exitIndex + 1);
+        Stmt entry = cfg.getEntry();
+        result.addExecutable(entry);
+        for (Edge<Stmt> edge : cfg.getOutEdgesOf(entry)) {
+            result.addExecutable(edge);
+            enqueue(cfg, edge.getTarget(), workList, queued, exitIndex);
+        }
+        while (!workList.isEmpty()) {
+            Stmt node = workList.poll();
+            queued.clear(cfg.isExit(node) ? exitIndex : node.getIndex());
+            SolverBudget.checkpoint();
+            boolean first = result.addExecutable(node);
+            CPFact in = result.getInFact(node);
+            for (Edge<Stmt> edge : cfg.getInEdgesOf(node)) {
+                if (result.isExecutable(edge)) {
+                    cp.meetIntoChanged(result.getOutFact(edge.getSource()), in);
+                }
+            }
+            if (cfg.isExit(node)) {
+                continue;
+            }
+            boolean changed = cp.transferNode(node, in, result.getOutFact(node)) || first;
+            Value cond = evaluateCondition(node, in);
+            for (Edge<Stmt> edge : cfg.getOutEdgesOf(node)) {
+                if (isFeasible(node, edge, cond) &&
+                        (result.addExecutable(edge) || changed)) {
+                    enqueue(cfg, edge.getTarget(), workList, queued, exitIndex);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void enqueue(CFG<Stmt> cfg, Stmt node, Queue<Stmt> workList,
+                                BitSet queued, int exitIndex) {
+        int index = cfg.isExit(node) ? exitIndex : node.getIndex();
+        if (!queued.get(index)) {
+            queued.set(index);
+            workList.add(node);
+        }
+    }
+
+    /**
+     * @return the value of the condition of given branch, or null if
+     * given node is not a branch. Conditions which involve variables that
+     * are not tracked by constant propagation (e.g., references) are NAC,
+     * as their UNDEF values do not mean that they are not computed yet.
+     */
+    private static Value evaluateCondition(Stmt node, CPFact in) {
+        if (node instanceof If ifStmt) {
+            ConditionExp cond = ifStmt.getCondition();
+            if (!ConstantPropagation.canHoldInt(cond.getOperand1()) ||
+                    !ConstantPropagation.canHoldInt(cond.getOperand2())) {
+                return Value.getNAC();
+            }
+            return ConstantPropagation.evaluate(cond, in);
+        } else if (node instanceof SwitchStmt switchStmt) {
+            Var var = switchStmt.getVar();
+            return ConstantPropagation.canHoldInt(var) ?
+                    in.get(var) : Value.getNAC();
+        }
+        return null;
+    }
+
+    /**
+     * @return true if control may flow from given node along given edge,
+     * where cond is the value of the condition of the node.
+     */
+    private static boolean isFeasible(Stmt node, Edge<Stmt> edge, Value cond) {
+        if (cond == null || cond.isNAC()) {
+            return true;
+        }
+        if (cond.isUndef()) {
+            return false;
+        }
+        int c = cond.getConstant();
+        if (node instanceof If) {
+            return edge.getKind() == (c != 0 ?
+                    Edge.Kind.IF_TRUE : Edge.Kind.IF_FALSE);
+        }
+        SwitchStmt switchStmt = (SwitchStmt) node;
+        int i = switchStmt.getCaseValues().indexOf(c);
+        return edge.getTarget() == (i >= 0 ?
+                switchStmt.getTarget(i) : switchStmt.getDefaultTarget());
+    }
+}
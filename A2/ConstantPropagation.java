@@ -23,25 +23,93 @@
  package pascal.taie.analysis.dataflow.analysis.constprop;
 
  import pascal.taie.analysis.dataflow.analysis.AbstractDataflowAnalysis;
+ import pascal.taie.analysis.dataflow.analysis.ConservativeDataflowAnalysis;
+ import pascal.taie.analysis.dataflow.analysis.InPlaceDataflowAnalysis;
+ import pascal.taie.analysis.dataflow.fact.DataflowResult;
  import pascal.taie.analysis.graph.cfg.CFG;
+ import pascal.taie.analysis.graph.cfg.CFGBuilder;
  import pascal.taie.config.AnalysisConfig;
+ import pascal.taie.config.ConfigException;
+ import pascal.taie.ir.IR;
  import pascal.taie.ir.exp.*;
  import pascal.taie.ir.stmt.DefinitionStmt;
  import pascal.taie.ir.stmt.Stmt;
  import pascal.taie.language.type.PrimitiveType;
  import pascal.taie.language.type.Type;
  
- import java.util.concurrent.atomic.AtomicBoolean;
- 
  public class ConstantPropagation extends
-         AbstractDataflowAnalysis<Stmt, CPFact> {
+         AbstractDataflowAnalysis<Stmt, CPFact>
+         implements InPlaceDataflowAnalysis<Stmt, CPFact>,
+         ConservativeDataflowAnalysis<Stmt, CPFact> {
  
      public static final String ID = "constprop";
  
+     /**
+      * Whether to solve with {@link SparseConstantPropagation}, which
+      * propagates values along def-use chains. Configured by boolean
+      * option "sparse" (false by default).
+      */
+     private final boolean sparse;
+ 
+     /**
+      * Whether to solve with {@link ConditionalConstantPropagation}, which
+      * only propagates facts along the edges that may be executed, and
+      * gives a {@link ConditionalCPResult}. Configured by boolean option
+      * "conditional" (false by default), which takes precedence over
+      * option "sparse".
+      */
+     private final boolean conditional;
+ 
+     /**
+      * Representation of the facts, configured by option "fact-impl",
+      * which is "hash" (default), "compact" for {@link CompactCPFact},
+      * or "persistent" for {@link PersistentCPFact}.
+      */
+     private final String factImpl;
+ 
      public ConstantPropagation(AnalysisConfig config) {
          super(config);
+         sparse = getOptions().has("sparse") &&
+                 getOptions().getBoolean("sparse");
+         conditional = getOptions().has("conditional") &&
+                 getOptions().getBoolean("conditional");
+         factImpl = getOptions().has("fact-impl") ?
+                 getOptions().getString("fact-impl") : "hash";
      }
  
+     @Override
+     public DataflowResult<Stmt, CPFact> analyze(IR ir) {
+         if (conditional) {
+             CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+             return new ConditionalConstantPropagation(this).solve(cfg);
+         }
+         if (sparse) {
+             CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+             return new SparseConstantPropagation(this).solve(cfg);
+         }
+         return super.analyze(ir);
+     }
+ 
+     /**
+      * @return a result where all int variables are NAC at every node,
+      * so that no branch is considered dead.
+      */
+     @Override
+     public DataflowResult<Stmt, CPFact> conservativeResult(CFG<Stmt> cfg) {
+         CPFact nac = newInitialFact();
+         cfg.getIR().getVars().forEach(var -> {
+             if (canHoldInt(var)) {
+                 nac.update(var, Value.getNAC());
+             }
+         });
+         DataflowResult<Stmt, CPFact> result = new DataflowResult<>();
+         for (Stmt node : cfg) {
+             result.setInFact(node, nac);
+             result.setOutFact(node, nac);
+         }
+         return result;
+     }
+
      @Override
      public boolean isForward() {
          return true;
@@ -50,7 +118,7 @@
      @Override
      public CPFact newBoundaryFact(CFG<Stmt> cfg) {
          // TODO - finish me
-         CPFact fact = new CPFact();
+         CPFact fact = newInitialFact();
          cfg.getIR().getParams().forEach(var -> {
              if(canHoldInt(var)) {
                  fact.update(var, Value.getNAC());
@@ -62,16 +130,36 @@
      @Override
      public CPFact newInitialFact() {
          // TODO - finish me
-         return new CPFact();
+         return switch (factImpl) {
+             case "compact" -> new CompactCPFact();
+             case "persistent" -> new PersistentCPFact();
+             case "hash" -> new CPFact();
+             default -> throw new ConfigException("Unknown fact-impl: " + factImpl);
+         };
      }
  
      @Override
      public void meetInto(CPFact fact, CPFact target) {
          // TODO - finish me
-         fact.forEach((var, value) -> {
-             Value newValue = meetValue(value, target.get(var));
-             target.update(var, newValue);
-         });
+         meetIntoChanged(fact, target);
+     }
+ 
+     @Override
+     public boolean meetIntoChanged(CPFact fact, CPFact target) {
+         if (fact instanceof CompactCPFact compact &&
+                 target instanceof CompactCPFact compactTarget) {
+             return compactTarget.meet(compact);
+         }
+         if (fact instanceof PersistentCPFact persistent &&
+                 target instanceof PersistentCPFact persistentTarget) {
+             return persistentTarget.meet(persistent);
+         }
+         boolean changed = false;
+         for (Var var : fact.keySet()) {
+             Value newValue = meetValue(fact.get(var), target.get(var));
+             changed |= target.update(var, newValue);
+         }
+         return changed;
      }
  
      /**
@@ -107,21 +195,35 @@
  
          // OUT[s] = gen ∪ (IN[s]– {(x, _)})
  
-         CPFact oldOut = out.copy();
-         in.forEach(out::update);
- 
-         if(stmt instanceof DefinitionStmt) {
-             DefinitionStmt defStmt = (DefinitionStmt) stmt;
-             if(defStmt.getLValue() instanceof Var) {
-                 Var var = (Var) defStmt.getLValue();
-                 if(canHoldInt(var)) {
- 
-                     Value value = evaluate(defStmt.getRValue(), in);
-                     out.update(var, value);
+         // out is updated in place, and each variable is updated at most
+         // once, so that whether out changed is known without copying it
+         Var def = null;
+         Value value = null;
+         if (stmt instanceof DefinitionStmt<?, ?> defStmt &&
+                 defStmt.getLValue() instanceof Var var &&
+                 canHoldInt(var)) {
+             def = var;
+             value = evaluate(defStmt.getRValue(), in);
+         }
+         boolean changed;
+         if (in instanceof CompactCPFact compactIn &&
+                 out instanceof CompactCPFact compactOut) {
+             changed = compactOut.copyFromExcept(compactIn, def);
+         } else if (in instanceof PersistentCPFact persistentIn &&
+                 out instanceof PersistentCPFact persistentOut) {
+             // out shares the structure of in
+             return persistentOut.setWith(persistentIn, def, value);
+         } else {
+             changed = false;
+             for (Var var : in.keySet()) {
+                 if (var != def) {
+                     changed |= out.update(var, in.get(var));
                  }
              }
          }
-         boolean changed = !oldOut.equals(out);
+         if (def != null) {
+             changed |= out.update(def, value);
+         }
          return changed;
      }
  
@@ -0,0 +1,282 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.defuse;
+
+import pascal.taie.analysis.dataflow.solver.SolverBudget;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.LValue;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.function.BiConsumer;
+
+/**
+ * Def-use chains of an IR, derived from reaching definitions.
+ * <p>
+ * The parameters (including "this") of the method are regarded as
+ * being defined by the entry node of the CFG, thus for a use of
+ * a parameter that is not redefined on some path, the CFG entry
+ * appears among its definitions.
+ * <p>
+ * Definitions are numbered densely, and the reaching definitions of
+ * each node are kept as bit sets over the numbers. This object is
+ * meant to be short-lived, i.e., built, queried and dropped by a
+ * client analysis, rather than stored in the IR.
+ */
+public class DefUse {
+
+    private final CFG<Stmt> cfg;
+
+    private final IR ir;
+
+    /**
+     * Definition id -> the statement (or the CFG entry) of the definition.
+     */
+    private final List<Stmt> defStmts = new ArrayList<>();
+
+    /**
+     * Definition id -> the variable defined by the definition.
+     */
+    private final List<Var> defVars = new ArrayList<>();
+
+    /**
+     * Stmt index -> id of the definition at the statement, or -1.
+     */
+    private final int[] stmtDefIds;
+
+    /**
+     * Var index -> ids of all definitions of the variable.
+     */
+    private final BitSet[] varDefIds;
+
+    /**
+     * Stmt index -> ids of the definitions reaching the statement;
+     * the last element is for the CFG exit.
+     */
+    private final BitSet[] reachingDefs;
+
+    /**
+     * Definition id -> statements that use the definition.
+     */
+    private final List<List<Stmt>> uses = new ArrayList<>();
+
+    private DefUse(CFG<Stmt> cfg) {
+        this.cfg = cfg;
+        this.ir = cfg.getIR();
+        int nStmts = ir.getStmts().size();
+        this.stmtDefIds = new int[nStmts];
+        this.varDefIds = new BitSet[ir.getVars().size()];
+        this.reachingDefs = new BitSet[nStmts + 1];
+    }
+
+    /**
+     * Computes the def-use chains of the IR of given CFG.
+     */
+    public static DefUse of(CFG<Stmt> cfg) {
+        DefUse defUse = new DefUse(cfg);
+        defUse.numberDefinitions();
+        defUse.computeReachingDefinitions();
+        defUse.computeUses();
+        return defUse;
+    }
+
+    private void numberDefinitions() {
+        for (Stmt stmt : ir) {
+            Var var = getDefinedVar(stmt);
+            stmtDefIds[stmt.getIndex()] = var != null ? newDefinition(stmt, var) : -1;
+        }
+        if (ir.getThis() != null) {
+            newDefinition(cfg.getEntry(), ir.getThis());
+        }
+        for (Var param : ir.getParams()) {
+            newDefinition(cfg.getEntry(), param);
+        }
+    }
+
+    private int newDefinition(Stmt stmt, Var var) {
+        int id = defStmts.size();
+        defStmts.add(stmt);
+        defVars.add(var);
+        uses.add(new ArrayList<>());
+        BitSet ids = varDefIds[var.getIndex()];
+        if (ids == null) {
+            ids = varDefIds[var.getIndex()] = new BitSet();
+        }
+        ids.set(id);
+        return id;
+    }
+
+    /**
+     * @return the variable defined by given statement, or null if
+     * the statement does not define a variable.
+     */
+    private static Var getDefinedVar(Stmt stmt) {
+        Optional<LValue> def = stmt.getDef();
+        return def.isPresent() && def.get() instanceof Var var ? var : null;
+    }
+
+    private void computeReachingDefinitions() {
+        int nStmts = stmtDefIds.length;
+        BitSet entryOut = new BitSet(defStmts.size());
+        for (int id = 0; id < defStmts.size(); ++id) {
+            if (defStmts.get(id) == cfg.getEntry()) {
+                entryOut.set(id);
+            }
+        }
+        BitSet[] outs = new BitSet[nStmts];
+        Queue<Stmt> workList = new ArrayDeque<>(nStmts);
+        BitSet queued = new BitSet(nStmts);
+        for (Stmt stmt : ir) {
+            outs[stmt.getIndex()] = new BitSet();
+            workList.add(stmt);
+            queued.set(stmt.getIndex());
+        }
+        while (!workList.isEmpty()) {
+            Stmt stmt = workList.poll();
+            int index = stmt.getIndex();
+            queued.clear(index);
+            SolverBudget.checkpoint();
+            BitSet out = meetPreds(stmt, outs, entryOut);
+            int defId = stmtDefIds[index];
+            if (defId != -1) {
+                out.andNot(varDefIds[defVars.get(defId).getIndex()]);
+                out.set(defId);
+            }
+            if (!out.equals(outs[index])) {
+                outs[index] = out;
+                for (Stmt succ : cfg.getSuccsOf(stmt)) {
+                    if (!cfg.isExit(succ) && !queued.get(succ.getIndex())) {
+                        workList.add(succ);
+                        queued.set(succ.getIndex());
+                    }
+                }
+            }
+        }
+        for (Stmt stmt : ir) {
+            reachingDefs[stmt.getIndex()] = meetPreds(stmt, outs, entryOut);
+        }
+        reachingDefs[nStmts] = meetPreds(cfg.getExit(), outs, entryOut);
+    }
+
+    private BitSet meetPreds(Stmt stmt, BitSet[] outs, BitSet entryOut) {
+        BitSet in = new BitSet(defStmts.size());
+        for (Stmt pred : cfg.getPredsOf(stmt)) {
+            in.or(cfg.isEntry(pred) ? entryOut : outs[pred.getIndex()]);
+        }
+        return in;
+    }
+
+    private void computeUses() {
+        for (Stmt stmt : ir) {
+            for (RValue use : stmt.getUses()) {
+                if (use instanceof Var var) {
+                    for (Stmt def : getDefs(stmt, var)) {
+                        List<Stmt> defUses = uses.get(getDefId(def, var));
+                        if (defUses.isEmpty() || defUses.get(defUses.size() - 1) != stmt) {
+                            defUses.add(stmt);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private int getDefId(Stmt def, Var var) {
+        if (def == cfg.getEntry()) {
+            BitSet ids = varDefIds[var.getIndex()];
+            for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+                if (defStmts.get(id) == def) {
+                    return id;
+                }
+            }
+            throw new IllegalArgumentException(var + " is not a parameter");
+        }
+        return stmtDefIds[def.getIndex()];
+    }
+
+    private BitSet getReachingDefIds(Stmt stmt) {
+        return reachingDefs[cfg.isExit(stmt) ? stmtDefIds.length : stmt.getIndex()];
+    }
+
+    /**
+     * @return the definitions of given variable that reach given statement.
+     * The CFG entry represents the definition of a parameter on method entry.
+     */
+    public List<Stmt> getDefs(Stmt stmt, Var var) {
+        BitSet varIds = varDefIds[var.getIndex()];
+        if (varIds == null || cfg.isEntry(stmt)) {
+            return List.of();
+        }
+        BitSet ids = (BitSet) getReachingDefIds(stmt).clone();
+        ids.and(varIds);
+        List<Stmt> defs = new ArrayList<>(ids.cardinality());
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            defs.add(defStmts.get(id));
+        }
+        return defs;
+    }
+
+    /**
+     * Iterates all definitions reaching given statement, i.e.,
+     * passes each pair of defined variable and definition to action.
+     */
+    public void forEachReachingDef(Stmt stmt, BiConsumer<Var, Stmt> action) {
+        if (cfg.isEntry(stmt)) {
+            return;
+        }
+        BitSet ids = getReachingDefIds(stmt);
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            action.accept(defVars.get(id), defStmts.get(id));
+        }
+    }
+
+    /**
+     * @return the statements that use the variable defined by given
+     * statement and are reached by the definition.
+     */
+    public List<Stmt> getUses(Stmt def) {
+        if (cfg.isEntry(def) || cfg.isExit(def)) {
+            throw new IllegalArgumentException(
+                    "Use getUses(entry, param) for parameters");
+        }
+        int id = stmtDefIds[def.getIndex()];
+        return id == -1 ? List.of() : Collections.unmodifiableList(uses.get(id));
+    }
+
+    /**
+     * @return the statements that use given parameter (defined by
+     * the CFG entry) and are reached by its definition on method entry.
+     */
+    public List<Stmt> getUses(Stmt entry, Var param) {
+        return Collections.unmodifiableList(uses.get(getDefId(entry, param)));
+    }
+}
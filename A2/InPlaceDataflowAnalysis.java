@@ -0,0 +1,50 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+/**
+ * Data-flow analysis whose meet operation reports whether it changed
+ * the target fact, so that solvers can update facts in place and skip
+ * the nodes whose input did not change.
+ * <p>
+ * {@link #transferNode} of such an analysis is also expected to update
+ * its target fact in place (without copying it to detect changes).
+ *
+ * @param <Node> type of CFG nodes
+ * @param <Fact> type of data-flow facts
+ */
+public interface InPlaceDataflowAnalysis<Node, Fact>
+        extends DataflowAnalysis<Node, Fact> {
+
+    /**
+     * Meets fact into target in place.
+     *
+     * @return true if target changed as a result of the call, otherwise false.
+     */
+    boolean meetIntoChanged(Fact fact, Fact target);
+
+    @Override
+    default void meetInto(Fact fact, Fact target) {
+        meetIntoChanged(fact, target);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.InPlaceDataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.MapFact;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.cfg.CFG;
+
+/**
+ * Decorator of a data-flow analysis which records the meet and transfer
+ * operations into the {@link SolverMetrics} record of current thread.
+ * Operations performed outside any solving (e.g., replaying facts on
+ * demand) are forwarded without being recorded.
+ */
+class MeteredAnalysis<Node, Fact> implements InPlaceDataflowAnalysis<Node, Fact> {
+
+    private final DataflowAnalysis<Node, Fact> analysis;
+
+    private final InPlaceDataflowAnalysis<Node, Fact> inPlaceAnalysis;
+
+    private final SolverMetrics metrics;
+
+    MeteredAnalysis(DataflowAnalysis<Node, Fact> analysis, SolverMetrics metrics) {
+        this.analysis = analysis;
+        this.inPlaceAnalysis = analysis instanceof InPlaceDataflowAnalysis<Node, Fact> a
+                ? a : null;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean isForward() {
+        return analysis.isForward();
+    }
+
+    @Override
+    public Fact newBoundaryFact(CFG<Node> cfg) {
+        return analysis.newBoundaryFact(cfg);
+    }
+
+    @Override
+    public Fact newInitialFact() {
+        return analysis.newInitialFact();
+    }
+
+    @Override
+    public boolean meetIntoChanged(Fact fact, Fact target) {
+        SolverMetrics.Record record = metrics.current();
+        long start = record != null ? System.nanoTime() : 0;
+        boolean changed;
+        if (inPlaceAnalysis != null) {
+            changed = inPlaceAnalysis.meetIntoChanged(fact, target);
+        } else {
+            // the change is unknown, as in Solver.meetInto()
+            analysis.meetInto(fact, target);
+            changed = true;
+        }
+        if (record != null) {
+            record.meetNanos += System.nanoTime() - start;
+            ++record.meets;
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean transferNode(Node node, Fact in, Fact out) {
+        SolverMetrics.Record record = metrics.current();
+        if (record == null) {
+            return analysis.transferNode(node, in, out);
+        }
+        long start = System.nanoTime();
+        boolean changed = analysis.transferNode(node, in, out);
+        record.transferNanos += System.nanoTime() - start;
+        ++record.transfers;
+        if (changed) {
+            ++record.changedTransfers;
+        }
+        record.peakFactSize = Math.max(record.peakFactSize,
+                Math.max(sizeOf(in), sizeOf(out)));
+        return changed;
+    }
+
+    private static int sizeOf(Object fact) {
+        if (fact instanceof SetFact<?> setFact) {
+            return setFact.size();
+        }
+        if (fact instanceof MapFact<?, ?> mapFact) {
+            return mapFact.size();
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Depth-first ordering of the nodes in a CFG, which assigns each node
+ * a dense position in [0, size). Work-list solvers use the positions
+ * as priorities, so that a node is (mostly) processed after the nodes
+ * it depends on.
+ * <p>
+ * Nodes that are unreachable from the root of the traversal are
+ * ordered after all reachable nodes.
+ * <p>
+ * The positions of statements are kept in an array indexed by
+ * {@link Stmt#getIndex()}, so that looking them up needs neither hashing
+ * nor unboxing; only other nodes (e.g., the entry and the exit of a CFG,
+ * which do not belong to the IR, or basic blocks) are kept in a map.
+ *
+ * @param <Node> type of CFG nodes
+ */
+class NodeOrder<Node> {
+
+    private final List<Node> nodes;
+
+    /**
+     * Positions of the statements, indexed by {@link Stmt#getIndex()}.
+     */
+    private final int[] stmtPositions;
+
+    /**
+     * Positions of the nodes which are not statements of the IR.
+     */
+    private final Map<Node, Integer> positions = new HashMap<>();
+
+    private NodeOrder(List<Node> nodes) {
+        this.nodes = nodes;
+        int maxIndex = -1;
+        for (Node node : nodes) {
+            if (node instanceof Stmt stmt) {
+                maxIndex = Math.max(maxIndex, stmt.getIndex());
+            }
+        }
+        this.stmtPositions = new int[maxIndex + 1];
+        for (int i = 0; i < nodes.size(); ++i) {
+            Node node = nodes.get(i);
+            if (node instanceof Stmt stmt && stmt.getIndex() >= 0) {
+                stmtPositions[stmt.getIndex()] = i;
+            } else {
+                positions.put(node, i);
+            }
+        }
+    }
+
+    /**
+     * @return reverse postorder of given CFG starting from its entry,
+     * which suits forward analyses.
+     */
+    static <Node> NodeOrder<Node> reversePostOrder(CFG<Node> cfg) {
+        return reversePostOrder(cfg.getNodes(), cfg.getEntry(), cfg::getSuccsOf);
+    }
+
+    /**
+     * @return reverse postorder of the reverse of given CFG, i.e.,
+     * traversing from the exit along predecessor edges,
+     * which suits backward analyses.
+     */
+    static <Node> NodeOrder<Node> reversePostOrderOnReverseCFG(CFG<Node> cfg) {
+        return reversePostOrder(cfg.getNodes(), cfg.getExit(), cfg::getPredsOf);
+    }
+
+    /**
+     * @return reverse postorder of an arbitrary graph given by its nodes
+     * and successor function, starting from root.
+     */
+    static <Node> NodeOrder<Node> reversePostOrder(
+            Collection<Node> nodes, Node root,
+            Function<Node, ? extends Collection<Node>> succs) {
+        List<Node> order = new ArrayList<>(nodes.size());
+        Set<Node> visited = Collections.newSetFromMap(
+                new HashMap<>(nodes.size() * 4 / 3 + 1));
+        appendReversePostOrder(root, succs, visited, order);
+        for (Node node : nodes) {
+            if (!visited.contains(node)) {
+                appendReversePostOrder(node, succs, visited, order);
+            }
+        }
+        return new NodeOrder<>(order);
+    }
+
+    /**
+     * Traverses the nodes reachable from root which have not been
+     * visited yet, and appends them to order in reverse postorder.
+     */
+    private static <Node> void appendReversePostOrder(
+            Node root, Function<Node, ? extends Collection<Node>> succs,
+            Set<Node> visited, List<Node> order) {
+        int start = order.size();
+        // iterative DFS, as CFGs of large methods are too deep for recursion
+        Deque<Node> stack = new ArrayDeque<>();
+        Deque<Iterator<Node>> iterators = new ArrayDeque<>();
+        visited.add(root);
+        stack.push(root);
+        iterators.push(succs.apply(root).iterator());
+        while (!stack.isEmpty()) {
+            Iterator<Node> it = iterators.peek();
+            if (it.hasNext()) {
+                Node succ = it.next();
+                if (visited.add(succ)) {
+                    stack.push(succ);
+                    iterators.push(succs.apply(succ).iterator());
+                }
+            } else {
+                order.add(stack.pop());
+                iterators.pop();
+            }
+        }
+        Collections.reverse(order.subList(start, order.size()));
+    }
+
+    int size() {
+        return nodes.size();
+    }
+
+    /**
+     * @return the node at given position.
+     */
+    Node get(int position) {
+        return nodes.get(position);
+    }
+
+    /**
+     * @return the position of given node.
+     */
+    int positionOf(Node node) {
+        if (node instanceof Stmt stmt && stmt.getIndex() >= 0) {
+            return stmtPositions[stmt.getIndex()];
+        }
+        return positions.get(node);
+    }
+}
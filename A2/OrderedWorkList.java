@@ -0,0 +1,69 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import java.util.BitSet;
+
+/**
+ * Work-list which always polls the pending node with the smallest
+ * position in a {@link NodeOrder}. Membership is kept in a bit set
+ * over the positions, thus both adding and membership test are O(1).
+ *
+ * @param <Node> type of nodes
+ */
+class OrderedWorkList<Node> {
+
+    private final NodeOrder<Node> order;
+
+    private final BitSet pending;
+
+    /**
+     * Lower bound of the positions of pending nodes.
+     */
+    private int first;
+
+    OrderedWorkList(NodeOrder<Node> order) {
+        this.order = order;
+        this.pending = new BitSet(order.size());
+        this.first = order.size();
+    }
+
+    void add(Node node) {
+        int pos = order.positionOf(node);
+        pending.set(pos);
+        if (pos < first) {
+            first = pos;
+        }
+    }
+
+    boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    Node poll() {
+        int pos = pending.nextSetBit(first);
+        pending.clear(pos);
+        first = pos + 1;
+        return order.get(pos);
+    }
+}
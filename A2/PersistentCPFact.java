@@ -0,0 +1,487 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.fact.MapFact;
+import pascal.taie.ir.exp.Var;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * {@link CPFact} backed by a persistent hash trie, so that facts which
+ * are copied from each other share their unchanged parts.
+ * <p>
+ * The trie is keyed by the dense index of variables (see
+ * {@link Var#getIndex()}), five bits per level, and is never mutated:
+ * updates copy the path to the changed entry and replace the root of
+ * this fact. Thus {@link #copy()} takes constant time and space, and
+ * the facts stored for adjacent nodes in a {@code DataflowResult} (which
+ * differ in the variable defined by the node at most) share all other
+ * entries, i.e., the memory of a result grows with the number of changes
+ * rather than with #nodes × #variables. Values are encoded as in
+ * {@link CompactCPFact}.
+ * <p>
+ * The shape of a trie is determined by its entries, thus equality
+ * checks compare tries structurally and skip shared subtries. As for
+ * {@link CompactCPFact}, a fact of this class is never equal to a fact
+ * of another class.
+ */
+public class PersistentCPFact extends CPFact {
+
+    private static final int BITS = 5;
+
+    private static final int MASK = (1 << BITS) - 1;
+
+    /**
+     * Entry of the trie. Variables with the same index (which come from
+     * different methods) are chained in the same leaf.
+     */
+    private record Leaf(Var key, long code, Leaf next) {
+    }
+
+    /**
+     * Inner node of the trie, which holds the children (leaves or nodes)
+     * of the bits set in bitmap, in ascending order of the bits.
+     */
+    private record Node(int bitmap, Object[] children) {
+    }
+
+    /**
+     * The trie, i.e., null (empty), a {@link Leaf} or a {@link Node}.
+     */
+    private Object root;
+
+    /**
+     * Number of entries, or -1 if it has to be recounted.
+     */
+    private int size;
+
+    public PersistentCPFact() {
+        this(null, 0);
+    }
+
+    private PersistentCPFact(Object root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    private static int bitOf(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    private static int indexOf(int bitmap, int bit) {
+        return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    @Override
+    public Value get(Var key) {
+        int hash = key.getIndex();
+        Object trie = root;
+        for (int shift = 0; trie instanceof Node node; shift += BITS) {
+            int bit = bitOf(hash, shift);
+            if ((node.bitmap & bit) == 0) {
+                return Value.getUndef();
+            }
+            trie = node.children[indexOf(node.bitmap, bit)];
+        }
+        for (Leaf leaf = (Leaf) trie; leaf != null; leaf = leaf.next) {
+            if (leaf.key == key) {
+                return CompactCPFact.decode(leaf.code);
+            }
+        }
+        return Value.getUndef();
+    }
+
+    /**
+     * Associates key with code in given trie; if meet is true and key
+     * is present, associates it with the meet of the old code and code.
+     *
+     * @return the resulting trie, which is the given trie itself
+     * if nothing changed.
+     */
+    private static Object put(Object trie, Var key, long code,
+                              boolean meet, int shift) {
+        int hash = key.getIndex();
+        if (trie == null) {
+            return new Leaf(key, code, null);
+        }
+        if (trie instanceof Leaf leaf) {
+            int leafHash = leaf.key.getIndex();
+            return leafHash == hash ?
+                    putInChain(leaf, key, code, meet) :
+                    join(leaf, leafHash, new Leaf(key, code, null), hash, shift);
+        }
+        Node node = (Node) trie;
+        int bit = bitOf(hash, shift);
+        int i = indexOf(node.bitmap, bit);
+        if ((node.bitmap & bit) == 0) {
+            Object[] children = new Object[node.children.length + 1];
+            System.arraycopy(node.children, 0, children, 0, i);
+            children[i] = new Leaf(key, code, null);
+            System.arraycopy(node.children, i, children, i + 1,
+                    node.children.length - i);
+            return new Node(node.bitmap | bit, children);
+        }
+        Object child = node.children[i];
+        Object newChild = put(child, key, code, meet, shift + BITS);
+        return newChild == child ? node : replace(node, i, newChild);
+    }
+
+    private static Leaf putInChain(Leaf leaf, Var key, long code, boolean meet) {
+        for (Leaf l = leaf; l != null; l = l.next) {
+            if (l.key == key) {
+                long newCode = meet ? CompactCPFact.meet(l.code, code) : code;
+                return newCode == l.code ? leaf : replaceInChain(leaf, key, newCode);
+            }
+        }
+        return new Leaf(key, code, leaf);
+    }
+
+    private static Leaf replaceInChain(Leaf leaf, Var key, long code) {
+        return leaf.key == key ?
+                new Leaf(key, code, leaf.next) :
+                new Leaf(leaf.key, leaf.code, replaceInChain(leaf.next, key, code));
+    }
+
+    /**
+     * @return a trie holding tries a and b whose hashes differ.
+     */
+    private static Node join(Object a, int hashA, Object b, int hashB, int shift) {
+        int bitA = bitOf(hashA, shift);
+        int bitB = bitOf(hashB, shift);
+        if (bitA == bitB) {
+            return new Node(bitA, new Object[]{
+                    join(a, hashA, b, hashB, shift + BITS)});
+        }
+        return Integer.compareUnsigned(bitA, bitB) < 0 ?
+                new Node(bitA | bitB, new Object[]{a, b}) :
+                new Node(bitA | bitB, new Object[]{b, a});
+    }
+
+    private static Node replace(Node node, int i, Object child) {
+        Object[] children = node.children.clone();
+        children[i] = child;
+        return new Node(node.bitmap, children);
+    }
+
+    /**
+     * Removes key from given trie. Nodes left with a single leaf are
+     * collapsed into the leaf, which keeps the shape of tries canonical.
+     *
+     * @return the resulting trie, which is the given trie itself
+     * if key is absent.
+     */
+    private static Object remove(Object trie, Var key, int shift) {
+        if (trie == null) {
+            return null;
+        }
+        if (trie instanceof Leaf leaf) {
+            return removeFromChain(leaf, key);
+        }
+        Node node = (Node) trie;
+        int bit = bitOf(key.getIndex(), shift);
+        if ((node.bitmap & bit) == 0) {
+            return node;
+        }
+        int i = indexOf(node.bitmap, bit);
+        Object child = node.children[i];
+        Object newChild = remove(child, key, shift + BITS);
+        if (newChild == child) {
+            return node;
+        }
+        int n = node.children.length;
+        if (newChild == null) {
+            if (n == 1) {
+                return null;
+            }
+            if (n == 2 && node.children[1 - i] instanceof Leaf other) {
+                return other;
+            }
+            Object[] children = new Object[n - 1];
+            System.arraycopy(node.children, 0, children, 0, i);
+            System.arraycopy(node.children, i + 1, children, i, n - i - 1);
+            return new Node(node.bitmap & ~bit, children);
+        }
+        if (n == 1 && newChild instanceof Leaf) {
+            return newChild;
+        }
+        return replace(node, i, newChild);
+    }
+
+    private static Leaf removeFromChain(Leaf leaf, Var key) {
+        if (leaf == null) {
+            return null;
+        }
+        if (leaf.key == key) {
+            return leaf.next;
+        }
+        Leaf next = removeFromChain(leaf.next, key);
+        return next == leaf.next ? leaf : new Leaf(leaf.key, leaf.code, next);
+    }
+
+    /**
+     * Meets trie from into trie to.
+     *
+     * @return the resulting trie, which is trie to itself
+     * if nothing changed.
+     */
+    private static Object meet(Object to, Object from, int shift) {
+        if (to == from || from == null) {
+            return to;
+        }
+        if (to == null) {
+            return from;
+        }
+        if (from instanceof Leaf leaf) {
+            return putAll(to, leaf, shift);
+        }
+        if (to instanceof Leaf leaf) {
+            return putAll(from, leaf, shift);
+        }
+        Node toNode = (Node) to;
+        Node fromNode = (Node) from;
+        int bitmap = toNode.bitmap | fromNode.bitmap;
+        Object[] children = bitmap == toNode.bitmap ?
+                null : new Object[Integer.bitCount(bitmap)];
+        int k = 0, t = 0, f = 0;
+        for (int bits = bitmap; bits != 0; bits &= bits - 1, ++k) {
+            int bit = Integer.lowestOneBit(bits);
+            Object toChild = (toNode.bitmap & bit) != 0 ? toNode.children[t++] : null;
+            Object fromChild = (fromNode.bitmap & bit) != 0 ? fromNode.children[f++] : null;
+            Object child = meet(toChild, fromChild, shift + BITS);
+            if (children == null && child != toChild) {
+                // the first change, copy the children met so far
+                children = toNode.children.clone();
+            }
+            if (children != null) {
+                children[k] = child;
+            }
+        }
+        return children == null ? toNode : new Node(bitmap, children);
+    }
+
+    private static Object putAll(Object trie, Leaf leaf, int shift) {
+        for (Leaf l = leaf; l != null; l = l.next) {
+            trie = put(trie, l.key, l.code, true, shift);
+        }
+        return trie;
+    }
+
+    private static boolean equals(Object trie1, Object trie2) {
+        if (trie1 == trie2) {
+            return true;
+        }
+        if (trie1 instanceof Node node1 && trie2 instanceof Node node2) {
+            if (node1.bitmap != node2.bitmap) {
+                return false;
+            }
+            for (int i = 0; i < node1.children.length; ++i) {
+                if (!equals(node1.children[i], node2.children[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (trie1 instanceof Leaf leaf1 && trie2 instanceof Leaf leaf2) {
+            int n = 0;
+            for (Leaf l = leaf1; l != null; l = l.next, ++n) {
+                Leaf other = find(leaf2, l.key);
+                if (other == null || other.code != l.code) {
+                    return false;
+                }
+            }
+            for (Leaf l = leaf2; l != null; l = l.next) {
+                --n;
+            }
+            return n == 0;
+        }
+        return false;
+    }
+
+    private static Leaf find(Leaf leaf, Var key) {
+        for (Leaf l = leaf; l != null; l = l.next) {
+            if (l.key == key) {
+                return l;
+            }
+        }
+        return null;
+    }
+
+    private static void forEach(Object trie, BiConsumer<Var, Value> action) {
+        if (trie instanceof Node node) {
+            for (Object child : node.children) {
+                forEach(child, action);
+            }
+        } else {
+            for (Leaf l = (Leaf) trie; l != null; l = l.next) {
+                action.accept(l.key, CompactCPFact.decode(l.code));
+            }
+        }
+    }
+
+    private void setRoot(Object newRoot) {
+        if (newRoot != root) {
+            root = newRoot;
+            size = -1;
+        }
+    }
+
+    @Override
+    public boolean update(Var key, Value value) {
+        Object oldRoot = root;
+        setRoot(value.isUndef() ?
+                remove(root, key, 0) :
+                put(root, key, CompactCPFact.encode(value), false, 0));
+        return root != oldRoot;
+    }
+
+    @Override
+    public Value remove(Var key) {
+        Value old = get(key);
+        setRoot(remove(root, key, 0));
+        return old.isUndef() ? null : old;
+    }
+
+    @Override
+    public boolean copyFrom(MapFact<Var, Value> fact) {
+        boolean changed = false;
+        for (Var key : fact.keySet()) {
+            changed |= update(key, fact.get(key));
+        }
+        return changed;
+    }
+
+    /**
+     * Sets this fact to given fact with var associated with value
+     * (if var is not null), sharing the structure of given fact.
+     * This is the transfer function of constant propagation:
+     * as IN facts only grow during solving, OUT never holds entries
+     * absent from IN, thus OUT can be replaced by (rather than updated
+     * with) IN.
+     *
+     * @return true if this fact changed as a result of the call.
+     */
+    boolean setWith(PersistentCPFact fact, Var var, Value value) {
+        Object newRoot = fact.root;
+        if (var != null) {
+            newRoot = value.isUndef() ?
+                    remove(newRoot, var, 0) :
+                    put(newRoot, var, CompactCPFact.encode(value), false, 0);
+        }
+        if (equals(root, newRoot)) {
+            // still take the new trie, so that the old one can be freed
+            root = newRoot;
+            return false;
+        }
+        setRoot(newRoot);
+        return true;
+    }
+
+    /**
+     * Meets given fact into this fact.
+     *
+     * @return true if this fact changed as a result of the call.
+     */
+    boolean meet(PersistentCPFact fact) {
+        Object oldRoot = root;
+        setRoot(meet(root, fact.root, 0));
+        return root != oldRoot;
+    }
+
+    @Override
+    public PersistentCPFact copy() {
+        return new PersistentCPFact(root, size);
+    }
+
+    @Override
+    public void clear() {
+        setRoot(null);
+    }
+
+    @Override
+    public Set<Var> keySet() {
+        Set<Var> keySet = new HashSet<>();
+        forEach((var, value) -> keySet.add(var));
+        return Collections.unmodifiableSet(keySet);
+    }
+
+    @Override
+    public Stream<Map.Entry<Var, Value>> entries() {
+        List<Map.Entry<Var, Value>> entries = new ArrayList<>();
+        forEach((var, value) -> entries.add(
+                new AbstractMap.SimpleImmutableEntry<>(var, value)));
+        return entries.stream();
+    }
+
+    @Override
+    public void forEach(BiConsumer<Var, Value> action) {
+        if (root != null) {
+            forEach(root, action);
+        }
+    }
+
+    @Override
+    public int size() {
+        if (size == -1) {
+            int[] count = {0};
+            forEach((var, value) -> ++count[0]);
+            size = count[0];
+        }
+        return size;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof PersistentCPFact that) {
+            return equals(root, that.root);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        // the same as Map.hashCode()
+        int[] h = {0};
+        forEach((var, value) -> h[0] += var.hashCode() ^ value.hashCode());
+        return h[0];
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "{", "}");
+        forEach((var, value) -> joiner.add(var + "=" + value));
+        return joiner.toString();
+    }
+}
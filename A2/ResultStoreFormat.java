@@ -0,0 +1,81 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.store;
+
+/**
+ * Layout of the binary files of {@link ResultStoreWriter}. All numbers
+ * are big-endian.
+ * <pre>
+ * file    := header record* index indexOffset:long
+ * header  := MAGIC:int VERSION:int kind:byte
+ * index   := count:int (signature:string offset:long length:int)*
+ * string  := length:short utf8-bytes
+ * record  := nVars:int nStmts:int
+ *            nameOffsets:int[nVars]
+ *            inOffsets:int[nStmts] outOffsets:int[nStmts]
+ *            names:string* facts
+ * </pre>
+ * The offsets in a record are relative to the start of the record, and
+ * a fact offset is -1 if the statement has no such fact. Equal facts of
+ * adjacent statements are stored once and share their offsets.
+ * A fact is a count followed by the entries:
+ * <pre>
+ * constprop: (varIndex:int tag:byte [constant:int])*  (constant only if tag is CONSTANT)
+ * livevar:   varIndex:int*
+ * </pre>
+ * where varIndex is {@code Var.getIndex()} in the IR of the method,
+ * whose name is given by nameOffsets.
+ */
+final class ResultStoreFormat {
+
+    static final int MAGIC = 0x54444652; // "TDFR"
+
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 9;
+
+    static final byte NAC = 0;
+
+    static final byte CONSTANT = 1;
+
+    static final int NO_FACT = -1;
+
+    /**
+     * Readers map the file in segments of this size, where consecutive
+     * segments overlap by half, so that every record of at most
+     * {@link #MAX_RECORD_SIZE} bytes lies entirely in one segment.
+     */
+    static final long SEGMENT_SIZE = 1L << 30;
+
+    static final long MAX_RECORD_SIZE = SEGMENT_SIZE / 2;
+
+    /**
+     * Kinds of results in a store, one kind per file.
+     */
+    enum Kind {
+        CONSTANT_PROPAGATION, LIVE_VARIABLES
+    }
+
+    private ResultStoreFormat() {
+    }
+}
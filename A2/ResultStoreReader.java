@@ -0,0 +1,253 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.store;
+
+import pascal.taie.analysis.dataflow.analysis.constprop.Value;
+import pascal.taie.analysis.dataflow.store.ResultStoreFormat.Kind;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads a store written by {@link ResultStoreWriter}.
+ * <p>
+ * Only the index of methods is loaded when the store is opened; the
+ * records are memory-mapped, and a query decodes just the queried fact
+ * and the names of its variables. Queries may be issued concurrently.
+ * Variables are identified by their names in the results, as the IR
+ * of the methods is not needed (or available) when querying.
+ */
+public class ResultStoreReader implements Closeable {
+
+    private final FileChannel channel;
+
+    private final long fileSize;
+
+    private final Kind kind;
+
+    /**
+     * Signature -> {offset, length} of the record of the method.
+     */
+    private final Map<String, long[]> index;
+
+    /**
+     * Mapped segments of the file, created on first use.
+     */
+    private final MappedByteBuffer[] segments;
+
+    private ResultStoreReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.fileSize = channel.size();
+        ByteBuffer header = read(0, ResultStoreFormat.HEADER_SIZE);
+        if (header.getInt() != ResultStoreFormat.MAGIC) {
+            throw new IOException("Not a data-flow result store");
+        }
+        int version = header.getInt();
+        if (version != ResultStoreFormat.VERSION) {
+            throw new IOException("Unsupported store version: " + version);
+        }
+        this.kind = Kind.values()[header.get()];
+        long indexOffset = read(fileSize - 8, 8).getLong();
+        ByteBuffer buffer = read(indexOffset, (int) (fileSize - 8 - indexOffset));
+        int count = buffer.getInt();
+        this.index = new HashMap<>(count * 4 / 3 + 1);
+        for (int i = 0; i < count; ++i) {
+            byte[] signature = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(signature);
+            long offset = buffer.getLong();
+            int length = buffer.getInt();
+            index.put(new String(signature, StandardCharsets.UTF_8),
+                    new long[]{offset, length});
+        }
+        long step = ResultStoreFormat.SEGMENT_SIZE / 2;
+        this.segments = new MappedByteBuffer[(int) ((fileSize + step - 1) / step)];
+    }
+
+    public static ResultStoreReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new ResultStoreReader(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private ByteBuffer read(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Truncated data-flow result store");
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * @return signatures of the methods whose results are in this store.
+     */
+    public Set<String> getMethods() {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+
+    /**
+     * @return constants at the program point before given statement,
+     * i.e., variable names mapped to constant or NAC values (UNDEF is
+     * absent), or null if the store holds no such fact.
+     */
+    public Map<String, Value> getConstantsIn(String method, int stmtIndex) {
+        return getConstants(method, stmtIndex, true);
+    }
+
+    /**
+     * @return constants at the program point after given statement;
+     * see {@link #getConstantsIn}.
+     */
+    public Map<String, Value> getConstantsOut(String method, int stmtIndex) {
+        return getConstants(method, stmtIndex, false);
+    }
+
+    /**
+     * @return names of the variables live before given statement,
+     * or null if the store holds no such fact.
+     */
+    public Set<String> getLiveVariablesIn(String method, int stmtIndex) {
+        return getLiveVariables(method, stmtIndex, true);
+    }
+
+    /**
+     * @return names of the variables live after given statement;
+     * see {@link #getLiveVariablesIn}.
+     */
+    public Set<String> getLiveVariablesOut(String method, int stmtIndex) {
+        return getLiveVariables(method, stmtIndex, false);
+    }
+
+    private Map<String, Value> getConstants(String method, int stmtIndex, boolean in) {
+        checkKind(Kind.CONSTANT_PROPAGATION);
+        ByteBuffer record = getRecord(method);
+        int offset = record == null ? ResultStoreFormat.NO_FACT
+                : getFactOffset(record, stmtIndex, in);
+        if (offset == ResultStoreFormat.NO_FACT) {
+            return null;
+        }
+        int count = record.getInt(offset);
+        Map<String, Value> constants = new LinkedHashMap<>(count * 4 / 3 + 1);
+        int pos = offset + 4;
+        for (int i = 0; i < count; ++i) {
+            String name = getName(record, record.getInt(pos));
+            byte tag = record.get(pos + 4);
+            pos += 5;
+            if (tag == ResultStoreFormat.CONSTANT) {
+                constants.put(name, Value.makeConstant(record.getInt(pos)));
+                pos += 4;
+            } else {
+                constants.put(name, Value.getNAC());
+            }
+        }
+        return constants;
+    }
+
+    private Set<String> getLiveVariables(String method, int stmtIndex, boolean in) {
+        checkKind(Kind.LIVE_VARIABLES);
+        ByteBuffer record = getRecord(method);
+        int offset = record == null ? ResultStoreFormat.NO_FACT
+                : getFactOffset(record, stmtIndex, in);
+        if (offset == ResultStoreFormat.NO_FACT) {
+            return null;
+        }
+        int count = record.getInt(offset);
+        Set<String> liveVars = new LinkedHashSet<>(count * 4 / 3 + 1);
+        for (int i = 0; i < count; ++i) {
+            liveVars.add(getName(record, record.getInt(offset + 4 + 4 * i)));
+        }
+        return liveVars;
+    }
+
+    private void checkKind(Kind expected) {
+        if (kind != expected) {
+            throw new IllegalStateException(
+                    "Cannot read " + expected + " results from a store of " + kind);
+        }
+    }
+
+    /**
+     * @return the record of given method, or null if it is absent.
+     */
+    private ByteBuffer getRecord(String method) {
+        long[] entry = index.get(method);
+        if (entry == null) {
+            return null;
+        }
+        long step = ResultStoreFormat.SEGMENT_SIZE / 2;
+        int i = (int) (entry[0] / step);
+        return getSegment(i).slice((int) (entry[0] - i * step), (int) entry[1]);
+    }
+
+    private synchronized MappedByteBuffer getSegment(int i) {
+        if (segments[i] == null) {
+            long start = i * (ResultStoreFormat.SEGMENT_SIZE / 2);
+            long size = Math.min(ResultStoreFormat.SEGMENT_SIZE, fileSize - start);
+            try {
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to map data-flow result store", e);
+            }
+        }
+        return segments[i];
+    }
+
+    private static int getFactOffset(ByteBuffer record, int stmtIndex, boolean in) {
+        int nVars = record.getInt(0);
+        int nStmts = record.getInt(4);
+        if (stmtIndex < 0 || stmtIndex >= nStmts) {
+            return ResultStoreFormat.NO_FACT;
+        }
+        int table = 8 + 4 * nVars + (in ? 0 : 4 * nStmts);
+        return record.getInt(table + 4 * stmtIndex);
+    }
+
+    private static String getName(ByteBuffer record, int varIndex) {
+        int offset = record.getInt(8 + 4 * varIndex);
+        byte[] name = new byte[record.getShort(offset) & 0xFFFF];
+        record.get(offset + 2, name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
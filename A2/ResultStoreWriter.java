@@ -0,0 +1,229 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.store;
+
+import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.Value;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.dataflow.store.ResultStoreFormat.Kind;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Writes data-flow results of methods to a binary store, which can be
+ * queried by {@link ResultStoreReader} without re-running the analysis.
+ * One store holds results of one analysis, i.e., constant propagation
+ * or live variables, keyed by method signature and statement index.
+ * See {@link ResultStoreFormat} for the layout.
+ */
+public class ResultStoreWriter implements Closeable {
+
+    private final Kind kind;
+
+    private final FileChannel channel;
+
+    private long position;
+
+    /**
+     * Signature -> {offset, length} of the record of the method.
+     */
+    private final Map<String, long[]> index = new LinkedHashMap<>();
+
+    private ResultStoreWriter(Path file, Kind kind) throws IOException {
+        this.kind = kind;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(ResultStoreFormat.HEADER_SIZE)
+                .putInt(ResultStoreFormat.MAGIC)
+                .putInt(ResultStoreFormat.VERSION)
+                .put((byte) kind.ordinal())
+                .flip();
+        write(header);
+    }
+
+    /**
+     * Creates a store for results of constant propagation.
+     */
+    public static ResultStoreWriter forConstantPropagation(Path file) throws IOException {
+        return new ResultStoreWriter(file, Kind.CONSTANT_PROPAGATION);
+    }
+
+    /**
+     * Creates a store for results of live variable analysis.
+     */
+    public static ResultStoreWriter forLiveVariables(Path file) throws IOException {
+        return new ResultStoreWriter(file, Kind.LIVE_VARIABLES);
+    }
+
+    public void writeConstantPropagation(IR ir, DataflowResult<Stmt, CPFact> result)
+            throws IOException {
+        checkKind(Kind.CONSTANT_PROPAGATION);
+        writeMethod(ir, result::getInFact, result::getOutFact, (fact, out) -> {
+            out.writeInt(fact.keySet().size());
+            for (Var var : fact.keySet()) {
+                Value value = fact.get(var);
+                out.writeInt(var.getIndex());
+                if (value.isNAC()) {
+                    out.writeByte(ResultStoreFormat.NAC);
+                } else {
+                    out.writeByte(ResultStoreFormat.CONSTANT);
+                    out.writeInt(value.getConstant());
+                }
+            }
+        });
+    }
+
+    public void writeLiveVariables(IR ir, DataflowResult<Stmt, SetFact<Var>> result)
+            throws IOException {
+        checkKind(Kind.LIVE_VARIABLES);
+        writeMethod(ir, result::getInFact, result::getOutFact, (fact, out) -> {
+            out.writeInt(fact.size());
+            for (Iterator<Var> it = fact.stream().iterator(); it.hasNext(); ) {
+                out.writeInt(it.next().getIndex());
+            }
+        });
+    }
+
+    private void checkKind(Kind expected) {
+        if (kind != expected) {
+            throw new IllegalStateException(
+                    "Cannot write " + expected + " results to a store of " + kind);
+        }
+    }
+
+    @FunctionalInterface
+    private interface FactEncoder<Fact> {
+        void encode(Fact fact, DataOutputStream out) throws IOException;
+    }
+
+    private <Fact> void writeMethod(IR ir, Function<Stmt, Fact> inFacts,
+                                    Function<Stmt, Fact> outFacts,
+                                    FactEncoder<Fact> encoder) throws IOException {
+        String signature = ir.getMethod().getSignature();
+        if (index.containsKey(signature)) {
+            throw new IllegalStateException("Results of " + signature + " already written");
+        }
+        List<Var> vars = ir.getVars();
+        List<Stmt> stmts = ir.getStmts();
+        int nVars = vars.size();
+        int nStmts = stmts.size();
+        // names and facts are encoded after the fixed-size tables,
+        // whose offsets are filled in afterwards
+        int tablesSize = 8 + 4 * nVars + 8 * nStmts;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        int[] nameOffsets = new int[nVars];
+        for (Var var : vars) {
+            nameOffsets[var.getIndex()] = tablesSize + out.size();
+            byte[] name = var.getName().getBytes(StandardCharsets.UTF_8);
+            out.writeShort(name.length);
+            out.write(name);
+        }
+        int[] inOffsets = new int[nStmts];
+        int[] outOffsets = new int[nStmts];
+        Fact lastFact = null;
+        int lastOffset = ResultStoreFormat.NO_FACT;
+        for (Stmt stmt : stmts) {
+            for (int side = 0; side < 2; ++side) {
+                Fact fact = side == 0 ? inFacts.apply(stmt) : outFacts.apply(stmt);
+                int offset;
+                if (fact == null) {
+                    offset = ResultStoreFormat.NO_FACT;
+                } else if (fact.equals(lastFact)) {
+                    offset = lastOffset;
+                } else {
+                    offset = tablesSize + out.size();
+                    encoder.encode(fact, out);
+                    lastFact = fact;
+                    lastOffset = offset;
+                }
+                (side == 0 ? inOffsets : outOffsets)[stmt.getIndex()] = offset;
+            }
+        }
+        out.flush();
+        // check the length before writing, so that a rejected record
+        // leaves no bytes in the store
+        long length = (long) tablesSize + bytes.size();
+        if (length > ResultStoreFormat.MAX_RECORD_SIZE) {
+            throw new IOException("Results of " + signature + " are too large: "
+                    + length + " bytes");
+        }
+        ByteBuffer tables = ByteBuffer.allocate(tablesSize)
+                .putInt(nVars)
+                .putInt(nStmts);
+        tables.asIntBuffer().put(nameOffsets).put(inOffsets).put(outOffsets);
+        tables.position(0);
+        long offset = position;
+        write(tables);
+        write(ByteBuffer.wrap(bytes.toByteArray()));
+        index.put(signature, new long[]{offset, length});
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer);
+        }
+    }
+
+    /**
+     * Writes the index of the methods and closes the store.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            long indexOffset = position;
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(index.size());
+            for (Map.Entry<String, long[]> e : index.entrySet()) {
+                byte[] signature = e.getKey().getBytes(StandardCharsets.UTF_8);
+                out.writeShort(signature.length);
+                out.write(signature);
+                out.writeLong(e.getValue()[0]);
+                out.writeInt((int) e.getValue()[1]);
+            }
+            out.writeLong(indexOffset);
+            out.flush();
+            write(ByteBuffer.wrap(bytes.toByteArray()));
+        } finally {
+            channel.close();
+        }
+    }
+}
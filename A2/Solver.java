@@ -22,9 +22,25 @@
 
  package pascal.taie.analysis.dataflow.solver;
 
+ import pascal.taie.analysis.Analysis;
  import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+ import pascal.taie.analysis.dataflow.analysis.InPlaceDataflowAnalysis;
  import pascal.taie.analysis.dataflow.fact.DataflowResult;
+ import pascal.taie.analysis.dataflow.fact.StmtDataflowResult;
+ import pascal.taie.analysis.dataflow.solver.WeakTopologicalOrder.Component;
+ import pascal.taie.analysis.dataflow.solver.WeakTopologicalOrder.Element;
+ import pascal.taie.analysis.dataflow.solver.WeakTopologicalOrder.Vertex;
+ import pascal.taie.analysis.graph.cfg.BlockCFG;
  import pascal.taie.analysis.graph.cfg.CFG;
+ import pascal.taie.config.ConfigException;
+ import pascal.taie.ir.stmt.Stmt;
+ 
+ import java.util.ArrayList;
+ import java.util.Collection;
+ import java.util.HashSet;
+ import java.util.List;
+ import java.util.Set;
+ import java.util.function.Function;
  
  /**
   * Base class for data-flow analysis solver, which provides common
@@ -37,16 +53,90 @@
  
      protected final DataflowAnalysis<Node, Fact> analysis;
  
+     /**
+      * The analysis if it reports changes of meet, otherwise null.
+      */
+     private final InPlaceDataflowAnalysis<Node, Fact> inPlaceAnalysis;
+ 
+     /**
+      * Collector of metrics, or null if option "metrics" of the analysis
+      * is not true.
+      */
+     private final SolverMetrics metrics;
+ 
+     /**
+      * Name of the analysis in metrics.
+      */
+     private final String analysisId;
+ 
+     /**
+      * Whether results are turned into lean {@link BlockDataflowResult}s,
+      * which is configured by boolean option "lean-result".
+      */
+     private final boolean leanResult;
+ 
+     /**
+      * The analysis given to this solver, i.e., without decorators.
+      */
+     private final DataflowAnalysis<Node, Fact> originalAnalysis;
+ 
      protected Solver(DataflowAnalysis<Node, Fact> analysis) {
-         this.analysis = analysis;
+         this.leanResult = getBooleanOption(analysis, "lean-result");
+         this.analysisId = analysis instanceof Analysis a ?
+                 a.getId() : analysis.getClass().getSimpleName();
+         this.metrics = getBooleanOption(analysis, "metrics") ?
+                 SolverMetrics.get() : null;
+         this.analysis = metrics != null ?
+                 new MeteredAnalysis<>(analysis, metrics) : analysis;
+         this.inPlaceAnalysis = this.analysis instanceof InPlaceDataflowAnalysis<Node, Fact> a
+                 ? a : null;
      }
  
      /**
       * Static factory method to create a new solver for given analysis.
+      * The solver is selected by option "solver" of the analysis:
+      * <ul>
+      *     <li>"worklist" (default): {@link WorkListSolver}, which solves
+      *     both forward and backward analyses by the work-list algorithm;</li>
+      *     <li>"iterative": {@link IterativeSolver}, which sweeps over all
+      *     nodes in rounds;</li>
+      *     <li>"block": {@link BlockSolver}, which only stores and
+      *     propagates facts at the boundaries of basic blocks.</li>
+      *     <li>"wto": {@link WTOSolver}, which stabilizes loops innermost
+      *     first along a weak topological order.</li>
+      * </ul>
       */
      public static <Node, Fact> Solver<Node, Fact> makeSolver(
              DataflowAnalysis<Node, Fact> analysis) {
-         return new WorkListSolver<>(analysis);
+         String solver = getOption(analysis, "solver", "worklist");
+         return switch (solver) {
+             case "worklist" -> new WorkListSolver<>(analysis);
+             case "iterative" -> new IterativeSolver<>(analysis);
+             case "block" -> new BlockSolver<>(analysis);
+             case "wto" -> new WTOSolver<>(analysis);
+             default -> throw new ConfigException("Unknown solver: " + solver);
+         };
+     }
+ 
+     /**
+      * @return the value of given option of the analysis, or defaultValue
+      * if the analysis does not specify the option.
+      */
+     static String getOption(DataflowAnalysis<?, ?> analysis,
+                             String key, String defaultValue) {
+         if (analysis instanceof Analysis a && a.getOptions().has(key)) {
+             return a.getOptions().getString(key);
+         }
+         return defaultValue;
+     }
+ 
+     /**
+      * @return the value of given boolean option of the analysis, or false
+      * if the analysis does not specify the option.
+      */
+     static boolean getBooleanOption(DataflowAnalysis<?, ?> analysis, String key) {
+         return analysis instanceof Analysis a && a.getOptions().has(key) &&
+                 a.getOptions().getBoolean(key);
      }
  
      /**
@@ -56,9 +146,243 @@
       * @return the analysis result
       */
      public DataflowResult<Node, Fact> solve(CFG<Node> cfg) {
-         DataflowResult<Node, Fact> result = initialize(cfg);
-         doSolve(cfg, result);
-         return result;
+         SolverMetrics.Record record = metrics != null ?
+                 metrics.begin(analysisId, cfg) : null;
+         DataflowResult<Node, Fact> result;
+         try {
+             result = initialize(cfg);
+             doSolve(cfg, result);
+         } finally {
+             if (record != null) {
+                 metrics.end(record);
+             }
+         }
+         return leanResult ? toLeanResult(cfg, result) : result;
+     }
+ 
+     /**
+      * Re-solves the analysis on given CFG after it has been edited,
+      * reusing the facts of the previous result that are not affected by
+      * the edits. The result is identical to the one of {@link #solve(CFG)}.
+      * <p>
+      * The nodes are re-solved along the weak topological order of the CFG
+      * (of the reverse CFG for backward analyses), whose outermost elements
+      * are single nodes and loops in topological order. An element is only
+      * re-solved if it contains a changed node, or a node whose input facts
+      * changed, i.e., a successor of a node (a predecessor for backward
+      * analyses) whose OUT fact (IN fact) differs from the previous one;
+      * all other elements keep their previous facts. A single node is
+      * re-solved by one transfer. A loop is reset and solved to its fixed
+      * point, as its previous facts may support themselves along the back
+      * edges. Thus the work grows with the nodes whose facts are actually
+      * affected by the edits (rounded up to whole loops), rather than with
+      * the nodes that are reachable from them.
+      *
+      * @param cfg           the CFG after the edits
+      * @param previous      result of the analysis on the CFG before the edits;
+      *                      its facts are shared with the new result, thus it
+      *                      should not be used afterwards
+      * @param previousNodes maps each node of cfg, including its entry and
+      *                      exit, to the corresponding node of the CFG before
+      *                      the edits, or to null if the node is new. The CFG
+      *                      of an edited IR consists of new objects, thus the
+      *                      caller knows which old node each of them replaces.
+      * @param changed       nodes whose statements changed, or whose
+      *                      predecessors (successors for backward analyses)
+      *                      changed. New nodes, and nodes whose facts are
+      *                      missing in the previous result, are treated as
+      *                      changed as well.
+      * @return the analysis result on the edited CFG
+      */
+     public DataflowResult<Node, Fact> solveIncrementally(
+             CFG<Node> cfg, DataflowResult<Node, Fact> previous,
+             Function<Node, Node> previousNodes, Collection<Node> changed) {
+         SolverMetrics.Record record = metrics != null ?
+                 metrics.begin(analysisId, cfg) : null;
+         DataflowResult<Node, Fact> result;
+         try {
+             result = newResult(cfg);
+             Set<Node> dirty = new HashSet<>(changed);
+             for (Node node : cfg) {
+                 Node previousNode = previousNodes.apply(node);
+                 Fact in = previousNode != null ? previous.getInFact(previousNode) : null;
+                 Fact out = previousNode != null ? previous.getOutFact(previousNode) : null;
+                 if (in != null) {
+                     result.setInFact(node, in);
+                 }
+                 if (out != null) {
+                     result.setOutFact(node, out);
+                 }
+                 // the input fact of the boundary is not used
+                 if (getOutput(result, node) == null ||
+                         (getInput(result, node) == null && !isBoundary(cfg, node))) {
+                     dirty.add(node);
+                 }
+             }
+             WeakTopologicalOrder<Node> wto = analysis.isForward() ?
+                     WeakTopologicalOrder.of(cfg) :
+                     WeakTopologicalOrder.ofReverseCFG(cfg);
+             for (Element<Node> element : wto.getElements()) {
+                 List<Node> nodes = new ArrayList<>();
+                 collectNodes(element, nodes);
+                 if (nodes.stream().noneMatch(dirty::contains)) {
+                     continue;
+                 }
+                 List<Fact> oldOutputs = new ArrayList<>(nodes.size());
+                 for (Node node : nodes) {
+                     oldOutputs.add(getOutput(result, node));
+                 }
+                 if (element instanceof Vertex<Node> vertex) {
+                     resolveNode(cfg, result, vertex.node());
+                 } else {
+                     resolveLoop(cfg, result, nodes);
+                 }
+                 for (int i = 0; i < nodes.size(); ++i) {
+                     Node node = nodes.get(i);
+                     if (!getOutput(result, node).equals(oldOutputs.get(i))) {
+                         dirty.addAll(analysis.isForward() ?
+                                 cfg.getSuccsOf(node) : cfg.getPredsOf(node));
+                     }
+                 }
+             }
+         } finally {
+             if (record != null) {
+                 metrics.end(record);
+             }
+         }
+         return leanResult ? toLeanResult(cfg, result) : result;
+     }
+ 
+     /**
+      * @return true if given node is the boundary of the analysis, i.e.,
+      * the entry of the CFG for forward analyses, or the exit for backward
+      * analyses.
+      */
+     private boolean isBoundary(CFG<Node> cfg, Node node) {
+         return analysis.isForward() ? cfg.isEntry(node) : cfg.isExit(node);
+     }
+ 
+     /**
+      * @return the fact which flows into given node, i.e., its IN fact for
+      * forward analyses, or its OUT fact for backward analyses.
+      */
+     private Fact getInput(DataflowResult<Node, Fact> result, Node node) {
+         return analysis.isForward() ?
+                 result.getInFact(node) : result.getOutFact(node);
+     }
+ 
+     /**
+      * @return the fact which flows out of given node, i.e., its OUT fact
+      * for forward analyses, or its IN fact for backward analyses.
+      */
+     private Fact getOutput(DataflowResult<Node, Fact> result, Node node) {
+         return analysis.isForward() ?
+                 result.getOutFact(node) : result.getInFact(node);
+     }
+ 
+     /**
+      * Adds the nodes of given WTO element to nodes, head first.
+      */
+     private static <Node> void collectNodes(Element<Node> element, List<Node> nodes) {
+         if (element instanceof Vertex<Node> vertex) {
+             nodes.add(vertex.node());
+         } else {
+             Component<Node> component = (Component<Node>) element;
+             nodes.add(component.head());
+             for (Element<Node> e : component.body()) {
+                 collectNodes(e, nodes);
+             }
+         }
+     }
+ 
+     /**
+      * Re-computes the facts of a node which is not in a loop, from the
+      * facts of its predecessors (successors for backward analyses).
+      * The facts are new objects, as the old ones may be shared with
+      * the previous result.
+      */
+     private void resolveNode(CFG<Node> cfg, DataflowResult<Node, Fact> result, Node node) {
+         countVisit();
+         boolean forward = analysis.isForward();
+         if (isBoundary(cfg, node)) {
+             Fact boundaryFact = analysis.newBoundaryFact(cfg);
+             if (forward) {
+                 result.setOutFact(node, boundaryFact);
+             } else {
+                 result.setInFact(node, boundaryFact);
+             }
+             return;
+         }
+         Fact input = newInput(cfg, result, node);
+         Fact output = analysis.newInitialFact();
+         if (forward) {
+             result.setInFact(node, input);
+             result.setOutFact(node, output);
+             analysis.transferNode(node, input, output);
+         } else {
+             result.setOutFact(node, input);
+             result.setInFact(node, output);
+             analysis.transferNode(node, output, input);
+         }
+     }
+ 
+     /**
+      * Resets the facts of the nodes of a loop, and solves them to their
+      * fixed point by sweeping over them in WTO order. The loop cannot
+      * contain the boundary, which has no predecessors (successors for
+      * backward analyses).
+      */
+     private void resolveLoop(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                              List<Node> nodes) {
+         boolean forward = analysis.isForward();
+         for (Node node : nodes) {
+             result.setInFact(node, analysis.newInitialFact());
+             result.setOutFact(node, analysis.newInitialFact());
+         }
+         boolean changed;
+         do {
+             changed = false;
+             countRound();
+             for (Node node : nodes) {
+                 countVisit();
+                 Fact input = newInput(cfg, result, node);
+                 if (forward) {
+                     result.setInFact(node, input);
+                     changed |= analysis.transferNode(
+                             node, input, result.getOutFact(node));
+                 } else {
+                     result.setOutFact(node, input);
+                     changed |= analysis.transferNode(
+                             node, result.getInFact(node), input);
+                 }
+             }
+         } while (changed);
+     }
+ 
+     /**
+      * @return a new fact which is the meet of the output facts of the
+      * predecessors (successors for backward analyses) of given node.
+      */
+     private Fact newInput(CFG<Node> cfg, DataflowResult<Node, Fact> result, Node node) {
+         Fact input = analysis.newInitialFact();
+         for (Node source : analysis.isForward() ?
+                 cfg.getPredsOf(node) : cfg.getSuccsOf(node)) {
+             analysis.meetInto(getOutput(result, source), input);
+         }
+         return input;
+     }
+ 
+     /**
+      * @return a lean result with the same facts as given result, which
+      * only keeps one fact per basic block and replays the others on demand.
+      */
+     private DataflowResult<Node, Fact> toLeanResult(
+             CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+         if (result instanceof BlockDataflowResult<Node, Fact> blockResult) {
+             blockResult.makeLean();
+             return blockResult;
+         }
+         return BlockDataflowResult.leanCopyOf(analysis, BlockCFG.of(cfg), result);
      }
  
      /**
@@ -67,7 +391,7 @@
       * @return the initialized data-flow result
       */
      private DataflowResult<Node, Fact> initialize(CFG<Node> cfg) {
-         DataflowResult<Node, Fact> result = new DataflowResult<>();
+         DataflowResult<Node, Fact> result = newResult(cfg);
          if (analysis.isForward()) {
              initializeForward(cfg, result);
          } else {
@@ -76,6 +400,19 @@
          return result;
      }
  
+     /**
+      * Creates an empty data-flow result for given CFG. For CFGs of
+      * statements, which are densely indexed in their IR, the facts are
+      * kept in arrays by {@link StmtDataflowResult}.
+      */
+     @SuppressWarnings("unchecked")
+     protected DataflowResult<Node, Fact> newResult(CFG<Node> cfg) {
+         if (cfg.getEntry() instanceof Stmt) {
+             return (DataflowResult<Node, Fact>) new StmtDataflowResult<>((CFG<Stmt>) cfg);
+         }
+         return new DataflowResult<>();
+     }
+ 
      protected void initializeForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
          // TODO - finish me
  
@@ -86,13 +423,61 @@
          result.setOutFact(cfg.getEntry(), analysis.newBoundaryFact(cfg));
          for (Node node : cfg) {
              if(!cfg.isEntry(node)) {
+                 // IN facts are also created up front, so that
+                 // solvers can meet into them in place
+                 result.setInFact(node, analysis.newInitialFact());
                  result.setOutFact(node, analysis.newInitialFact());
              }
          }
      }
  
      protected void initializeBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-         throw new UnsupportedOperationException();
+ //        IN[exit] = ∅;  <- newBoundaryFact()
+ //        for (each basic block B \exit)
+ //            IN[B] = ∅;  <- newInitialFact()
+         result.setInFact(cfg.getExit(), analysis.newBoundaryFact(cfg));
+         for (Node node : cfg) {
+             if (!cfg.isExit(node)) {
+                 result.setInFact(node, analysis.newInitialFact());
+                 result.setOutFact(node, analysis.newInitialFact());
+             }
+         }
+     }
+ 
+     /**
+      * Meets fact into target.
+      *
+      * @return true if target changed as a result of the call. If the
+      * analysis is not an {@link InPlaceDataflowAnalysis}, the change is
+      * unknown and this method always returns true.
+      */
+     protected boolean meetInto(Fact fact, Fact target) {
+         if (inPlaceAnalysis != null) {
+             return inPlaceAnalysis.meetIntoChanged(fact, target);
+         }
+         analysis.meetInto(fact, target);
+         return true;
+     }
+ 
+     /**
+      * Counts a visit of a node (or a block) in {@link SolverMetrics},
+      * and charges it to the {@link SolverBudget} of the current thread.
+      * Solvers call this for each node they pick for processing.
+      */
+     protected void countVisit() {
+         if (metrics != null) {
+             ++metrics.current().visits;
+         }
+         SolverBudget.checkpoint();
+     }
+ 
+     /**
+      * Counts a sweep over the CFG in {@link SolverMetrics}.
+      */
+     protected void countRound() {
+         if (metrics != null) {
+             ++metrics.current().rounds;
+         }
      }
  
      /**
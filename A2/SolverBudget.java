@@ -0,0 +1,142 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.solver;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-solving budget of data-flow solvers, i.e., the maximum number of
+ * node visits and the maximum wall-clock time that solving one CFG
+ * may take.
+ * <p>
+ * A budget is installed for the current thread by {@link #run}, and
+ * solvers running in that thread check it at each visit via
+ * {@link #checkpoint()}; when the budget is exhausted, the solving is
+ * aborted by a {@link BudgetExceededException}. Once exhausted, the
+ * budget stays exhausted, i.e., later solving under it is aborted at its
+ * first checkpoint. While no budget is installed in any thread, a
+ * checkpoint costs a single volatile read.
+ */
+public final class SolverBudget {
+
+    /**
+     * Number of visits between two checks of the clock, as reading the
+     * clock is much more expensive than counting.
+     */
+    private static final int CLOCK_INTERVAL = 256;
+
+    private static final ThreadLocal<SolverBudget> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Number of threads that currently have a budget installed.
+     */
+    private static volatile int active;
+
+    private final long maxVisits;
+
+    private final long deadline;
+
+    private long visits;
+
+    private boolean exhausted;
+
+    private SolverBudget(long maxVisits, long maxNanos) {
+        this.maxVisits = maxVisits;
+        this.deadline = maxNanos == Long.MAX_VALUE ?
+                Long.MAX_VALUE : System.nanoTime() + maxNanos;
+    }
+
+    /**
+     * Runs given action in the current thread under a budget.
+     *
+     * @param maxVisits maximum number of node visits, or
+     *                  {@link Long#MAX_VALUE} for no limit
+     * @param maxNanos  maximum time in nanoseconds, or
+     *                  {@link Long#MAX_VALUE} for no limit
+     * @return the result of the action
+     * @throws BudgetExceededException if the solvers called by the action
+     *                                 exhaust the budget
+     */
+    public static <T> T run(long maxVisits, long maxNanos, Supplier<T> action) {
+        SolverBudget previous = CURRENT.get();
+        CURRENT.set(new SolverBudget(maxVisits, maxNanos));
+        synchronized (SolverBudget.class) {
+            ++active;
+        }
+        try {
+            return action.get();
+        } finally {
+            synchronized (SolverBudget.class) {
+                --active;
+            }
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * Charges one visit to the budget of the current thread, if any.
+     *
+     * @throws BudgetExceededException if the budget is exhausted
+     */
+    public static void checkpoint() {
+        if (active != 0) {
+            SolverBudget budget = CURRENT.get();
+            if (budget != null) {
+                budget.charge();
+            }
+        }
+    }
+
+    /**
+     * @return true if the budget of the current thread has been exhausted,
+     * e.g., by an analysis which caught the {@link BudgetExceededException}
+     * and fell back to a conservative result; false if it has not been
+     * exhausted or no budget is installed.
+     */
+    public static boolean isExhausted() {
+        SolverBudget budget = CURRENT.get();
+        return budget != null && budget.exhausted;
+    }
+
+    private void charge() {
+        if (exhausted) {
+            throw new BudgetExceededException("The budget is exhausted");
+        }
+        if (++visits > maxVisits) {
+            exhausted = true;
+            throw new BudgetExceededException(
+                    "Exceeded the limit of " + maxVisits + " visits");
+        }
+        if (visits % CLOCK_INTERVAL == 0 && deadline != Long.MAX_VALUE &&
+                System.nanoTime() - deadline > 0) {
+            exhausted = true;
+            throw new BudgetExceededException(
+                    "Exceeded the time limit after " + visits + " visits");
+        }
+    }
+}
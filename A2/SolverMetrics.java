@@ -0,0 +1,261 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Collects per-CFG metrics of data-flow solvers, e.g., how many times
+ * the nodes are visited and how much time is spent in meet and transfer.
+ * <p>
+ * Metrics are collected only for the analyses whose option "metrics" is
+ * true; when the option is off, solvers do not touch this class.
+ * Solvers running in different threads record into the same collector,
+ * and each solving is recorded by the thread running it.
+ */
+public class SolverMetrics {
+
+    private static final SolverMetrics METRICS = new SolverMetrics();
+
+    /**
+     * Metrics of solving an analysis on a CFG.
+     */
+    public static class Record {
+
+        private final String analysis;
+
+        private final JMethod method;
+
+        private final int nodes;
+
+        long visits;
+
+        long rounds;
+
+        long transfers;
+
+        long changedTransfers;
+
+        long meets;
+
+        int peakFactSize;
+
+        long meetNanos;
+
+        long transferNanos;
+
+        private long totalNanos;
+
+        private Record(String analysis, JMethod method, int nodes) {
+            this.analysis = analysis;
+            this.method = method;
+            this.nodes = nodes;
+        }
+
+        public String getAnalysis() {
+            return analysis;
+        }
+
+        public JMethod getMethod() {
+            return method;
+        }
+
+        /**
+         * @return number of nodes in the CFG.
+         */
+        public int getNodes() {
+            return nodes;
+        }
+
+        /**
+         * @return number of node visits, i.e., work-list pops of
+         * work-list solvers, or nodes processed in all sweeps of
+         * iterative solvers.
+         */
+        public long getVisits() {
+            return visits;
+        }
+
+        /**
+         * @return number of sweeps over the CFG (iterative solvers only).
+         */
+        public long getRounds() {
+            return rounds;
+        }
+
+        public long getTransfers() {
+            return transfers;
+        }
+
+        /**
+         * @return number of transfers which changed their target facts.
+         */
+        public long getChangedTransfers() {
+            return changedTransfers;
+        }
+
+        public long getMeets() {
+            return meets;
+        }
+
+        /**
+         * @return the largest size of the facts passed to transferNode,
+         * or 0 if the facts have no notion of size.
+         */
+        public int getPeakFactSize() {
+            return peakFactSize;
+        }
+
+        public long getMeetNanos() {
+            return meetNanos;
+        }
+
+        public long getTransferNanos() {
+            return transferNanos;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+    }
+
+    private final Queue<Record> records = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Record of the solving in progress in current thread.
+     */
+    private final ThreadLocal<Record> current = new ThreadLocal<>();
+
+    private SolverMetrics() {
+    }
+
+    /**
+     * @return the collector of solver metrics.
+     */
+    public static SolverMetrics get() {
+        return METRICS;
+    }
+
+    Record begin(String analysis, CFG<?> cfg) {
+        Record record = new Record(analysis, cfg.getMethod(), cfg.getNodes().size());
+        record.totalNanos = System.nanoTime();
+        current.set(record);
+        return record;
+    }
+
+    void end(Record record) {
+        record.totalNanos = System.nanoTime() - record.totalNanos;
+        current.remove();
+        records.add(record);
+    }
+
+    /**
+     * @return record of the solving in progress in current thread,
+     * or null if there is none.
+     */
+    Record current() {
+        return current.get();
+    }
+
+    /**
+     * @return all records collected so far.
+     */
+    public List<Record> getRecords() {
+        return new ArrayList<>(records);
+    }
+
+    public void clear() {
+        records.clear();
+    }
+
+    /**
+     * @return a table of the records, one line per solving, sorted by
+     * descending solving time.
+     */
+    public String toTable() {
+        List<Record> sorted = getRecords();
+        sorted.sort(Comparator.comparingLong(Record::getTotalNanos).reversed());
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-12s %8s %10s %7s %10s %10s %10s %6s %10s %10s %10s  %s%n",
+                "analysis", "nodes", "visits", "rounds", "transfers", "changed",
+                "meets", "peak", "meet(ms)", "trans(ms)", "total(ms)", "method"));
+        for (Record r : sorted) {
+            sb.append(String.format("%-12s %8d %10d %7d %10d %10d %10d %6d %10.3f %10.3f %10.3f  %s%n",
+                    r.analysis, r.nodes, r.visits, r.rounds, r.transfers,
+                    r.changedTransfers, r.meets, r.peakFactSize,
+                    toMillis(r.meetNanos), toMillis(r.transferNanos),
+                    toMillis(r.totalNanos), r.method));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return aggregate summary of the records.
+     */
+    public String summary() {
+        List<Record> all = getRecords();
+        long nodes = 0, visits = 0, transfers = 0, changed = 0, meets = 0;
+        long meetNanos = 0, transferNanos = 0, totalNanos = 0;
+        int peak = 0;
+        Record slowest = null;
+        for (Record r : all) {
+            nodes += r.nodes;
+            visits += r.visits;
+            transfers += r.transfers;
+            changed += r.changedTransfers;
+            meets += r.meets;
+            meetNanos += r.meetNanos;
+            transferNanos += r.transferNanos;
+            totalNanos += r.totalNanos;
+            peak = Math.max(peak, r.peakFactSize);
+            if (slowest == null || r.totalNanos > slowest.totalNanos) {
+                slowest = r;
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("#solved CFGs: %d, #nodes: %d%n", all.size(), nodes));
+        sb.append(String.format("#visits: %d (%.2f per node)%n",
+                visits, nodes == 0 ? 0.0 : (double) visits / nodes));
+        sb.append(String.format("#transfers: %d (%d changed), #meets: %d%n",
+                transfers, changed, meets));
+        sb.append(String.format("peak fact size: %d%n", peak));
+        sb.append(String.format("time: %.3fms (meet: %.3fms, transfer: %.3fms)%n",
+                toMillis(totalNanos), toMillis(meetNanos), toMillis(transferNanos)));
+        if (slowest != null) {
+            sb.append(String.format("slowest: %s of %s (%.3fms)%n",
+                    slowest.analysis, slowest.method, toMillis(slowest.totalNanos)));
+        }
+        return sb.toString();
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
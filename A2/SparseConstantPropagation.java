@@ -0,0 +1,148 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.StmtDataflowResult;
+import pascal.taie.analysis.dataflow.solver.SolverBudget;
+import pascal.taie.analysis.defuse.DefUse;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.DefinitionStmt;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Queue;
+
+/**
+ * Sparse engine of {@link ConstantPropagation}, which propagates values
+ * along def-use chains instead of through every node of the CFG.
+ * <p>
+ * Each definition of an int variable holds a single {@link Value}, and
+ * is re-evaluated (by {@link ConstantPropagation#evaluate}) only when
+ * the value of a definition reaching one of its operands changes.
+ * The value of an operand is the meet of the values of its reaching
+ * definitions, which is what the dense analysis computes for it at
+ * the fixed point. After the values are stable, the IN/OUT facts of
+ * all nodes are built once, so that clients still get the usual
+ * {@link DataflowResult}.
+ */
+class SparseConstantPropagation {
+
+    private final ConstantPropagation cp;
+
+    SparseConstantPropagation(ConstantPropagation cp) {
+        this.cp = cp;
+    }
+
+    DataflowResult<Stmt, CPFact> solve(CFG<Stmt> cfg) {
+        IR ir = cfg.getIR();
+        DefUse defUse = DefUse.of(cfg);
+        Value[] values = new Value[ir.getStmts().size()];
+        Queue<Stmt> workList = new ArrayDeque<>();
+        BitSet queued = new BitSet(values.length);
+        for (Stmt stmt : ir) {
+            if (isIntDefinition(stmt)) {
+                values[stmt.getIndex()] = Value.getUndef();
+                workList.add(stmt);
+                queued.set(stmt.getIndex());
+            }
+        }
+        // operand values of the definition being evaluated
+        CPFact operands = new CPFact();
+        while (!workList.isEmpty()) {
+            Stmt stmt = workList.poll();
+            queued.clear(stmt.getIndex());
+            SolverBudget.checkpoint();
+            operands.clear();
+            for (RValue use : stmt.getUses()) {
+                if (use instanceof Var var && ConstantPropagation.canHoldInt(var)) {
+                    operands.update(var, getValue(defUse, stmt, var, values));
+                }
+            }
+            Value value = ConstantPropagation.evaluate(
+                    ((DefinitionStmt<?, ?>) stmt).getRValue(), operands);
+            if (!value.equals(values[stmt.getIndex()])) {
+                values[stmt.getIndex()] = value;
+                for (Stmt user : defUse.getUses(stmt)) {
+                    if (isIntDefinition(user) && !queued.get(user.getIndex())) {
+                        workList.add(user);
+                        queued.set(user.getIndex());
+                    }
+                }
+            }
+        }
+        return buildResult(cfg, defUse, values);
+    }
+
+    /**
+     * @return the value of var at stmt, i.e., the meet of the values
+     * of its definitions reaching stmt.
+     */
+    private Value getValue(DefUse defUse, Stmt stmt, Var var, Value[] values) {
+        Value value = Value.getUndef();
+        for (Stmt def : defUse.getDefs(stmt, var)) {
+            value = cp.meetValue(value, getValue(def, values));
+        }
+        return value;
+    }
+
+    /**
+     * @return the value produced by a definition of an int variable.
+     */
+    private static Value getValue(Stmt def, Value[] values) {
+        // definitions at method entry are parameters, which are NAC
+        return def.getIndex() == -1 ? Value.getNAC() : values[def.getIndex()];
+    }
+
+    private DataflowResult<Stmt, CPFact> buildResult(
+            CFG<Stmt> cfg, DefUse defUse, Value[] values) {
+        DataflowResult<Stmt, CPFact> result = new StmtDataflowResult<>(cfg);
+        result.setOutFact(cfg.getEntry(), cp.newBoundaryFact(cfg));
+        for (Stmt node : cfg) {
+            if (cfg.isEntry(node)) {
+                continue;
+            }
+            CPFact in = cp.newInitialFact();
+            defUse.forEachReachingDef(node, (var, def) -> {
+                if (ConstantPropagation.canHoldInt(var)) {
+                    in.update(var, cp.meetValue(in.get(var), getValue(def, values)));
+                }
+            });
+            CPFact out = cp.newInitialFact();
+            cp.transferNode(node, in, out);
+            result.setInFact(node, in);
+            result.setOutFact(node, out);
+        }
+        return result;
+    }
+
+    private static boolean isIntDefinition(Stmt stmt) {
+        return stmt instanceof DefinitionStmt<?, ?> def &&
+                def.getLValue() instanceof Var var &&
+                ConstantPropagation.canHoldInt(var);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link DataflowResult} of a CFG of statements, which keeps the facts
+ * in arrays indexed by {@link Stmt#getIndex()} instead of in hash maps.
+ * The entry and the exit of the CFG, which do not belong to the IR,
+ * take the two slots after the statements.
+ * <p>
+ * The result only holds facts of the nodes of the given CFG. A statement
+ * of another IR, e.g., of an edited copy of the IR, is not a node of the
+ * CFG even if its index is in range, thus it has no facts in the result.
+ *
+ * @param <Fact> type of data-flow facts
+ */
+public class StmtDataflowResult<Fact> extends DataflowResult<Stmt, Fact> {
+
+    private final Stmt entry;
+
+    private final Stmt exit;
+
+    /**
+     * Statements of the IR, used to check that a statement belongs to it.
+     */
+    private final List<Stmt> stmts;
+
+    /**
+     * Number of statements in the IR.
+     */
+    private final int size;
+
+    private final Object[] inFacts;
+
+    private final Object[] outFacts;
+
+    public StmtDataflowResult(CFG<Stmt> cfg) {
+        // the facts are kept in the arrays, so the maps of the superclass
+        // are never used and need not be allocated
+        super(Collections.emptyMap(), Collections.emptyMap());
+        this.entry = cfg.getEntry();
+        this.exit = cfg.getExit();
+        this.stmts = cfg.getIR().getStmts();
+        this.size = stmts.size();
+        this.inFacts = new Object[size + 2];
+        this.outFacts = new Object[size + 2];
+    }
+
+    /**
+     * @return the slot of given node, or -1 if it is not a node of the CFG.
+     */
+    private int indexOf(Stmt node) {
+        int index = node.getIndex();
+        if (index >= 0) {
+            return index < size && stmts.get(index) == node ? index : -1;
+        }
+        if (node == entry) {
+            return size;
+        }
+        return node == exit ? size + 1 : -1;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Fact getInFact(Stmt node) {
+        int index = indexOf(node);
+        return index >= 0 ? (Fact) inFacts[index] : null;
+    }
+
+    @Override
+    public void setInFact(Stmt node, Fact fact) {
+        inFacts[checkedIndexOf(node)] = fact;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Fact getOutFact(Stmt node) {
+        int index = indexOf(node);
+        return index >= 0 ? (Fact) outFacts[index] : null;
+    }
+
+    @Override
+    public void setOutFact(Stmt node, Fact fact) {
+        outFacts[checkedIndexOf(node)] = fact;
+    }
+
+    private int checkedIndexOf(Stmt node) {
+        int index = indexOf(node);
+        if (index < 0) {
+            throw new IllegalArgumentException(node + " is not in the CFG");
+        }
+        return index;
+    }
+}
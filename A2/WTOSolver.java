@@ -0,0 +1,108 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.solver.WeakTopologicalOrder.Component;
+import pascal.taie.analysis.dataflow.solver.WeakTopologicalOrder.Element;
+import pascal.taie.analysis.dataflow.solver.WeakTopologicalOrder.Vertex;
+import pascal.taie.analysis.graph.cfg.CFG;
+
+import java.util.List;
+
+/**
+ * Solver which follows the recursive iteration strategy of Bourdoncle
+ * over a {@link WeakTopologicalOrder} of the CFG: the nodes are processed
+ * in the order, and each component (loop) is iterated until its head
+ * stabilizes, where the body of the component is stabilized (innermost
+ * components first) in each iteration. Thus, the body of an outer loop
+ * is not re-processed while an inner loop is still changing.
+ * <p>
+ * Backward analyses are solved over the WTO of the reverse CFG.
+ */
+class WTOSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    WTOSolver(DataflowAnalysis<Node, Fact> analysis) {
+        super(analysis);
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        solveElements(cfg, result, WeakTopologicalOrder.of(cfg).getElements());
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        solveElements(cfg, result, WeakTopologicalOrder.ofReverseCFG(cfg).getElements());
+    }
+
+    private void solveElements(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                               List<Element<Node>> elements) {
+        for (Element<Node> element : elements) {
+            if (element instanceof Vertex<Node> vertex) {
+                process(cfg, result, vertex.node());
+            } else {
+                solveComponent(cfg, result, (Component<Node>) element);
+            }
+        }
+    }
+
+    private void solveComponent(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                                Component<Node> component) {
+        process(cfg, result, component.head());
+        do {
+            solveElements(cfg, result, component.body());
+            // the body only changes if its input, i.e., the fact
+            // flowing out of the head, changes
+        } while (process(cfg, result, component.head()));
+    }
+
+    /**
+     * Meets the facts flowing into node and transfers it.
+     *
+     * @return true if the fact flowing out of node changed.
+     */
+    private boolean process(CFG<Node> cfg, DataflowResult<Node, Fact> result, Node node) {
+        countVisit();
+        if (analysis.isForward()) {
+            if (cfg.isEntry(node)) {
+                return false;
+            }
+            Fact in = result.getInFact(node);
+            for (Node pred : cfg.getPredsOf(node)) {
+                meetInto(result.getOutFact(pred), in);
+            }
+            return analysis.transferNode(node, in, result.getOutFact(node));
+        } else {
+            if (cfg.isExit(node)) {
+                return false;
+            }
+            Fact out = result.getOutFact(node);
+            for (Node succ : cfg.getSuccsOf(node)) {
+                meetInto(result.getInFact(succ), out);
+            }
+            return analysis.transferNode(node, result.getInFact(node), out);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Weak topological ordering (WTO) of a graph, computed by Bourdoncle's
+ * algorithm (F. Bourdoncle, "Efficient chaotic iteration strategies with
+ * widenings", 1993).
+ * <p>
+ * A WTO is a sequence of elements, each being either a single node or a
+ * component, i.e., a strongly connected part of the graph given by its
+ * head and a WTO of the rest of its nodes. Components nest as the loops
+ * of the graph, and the head of a component is the entry of the loop.
+ * <p>
+ * The algorithm is implemented with explicit stacks, as the CFGs of
+ * large methods are too deep for recursion.
+ *
+ * @param <Node> type of graph nodes
+ */
+class WeakTopologicalOrder<Node> {
+
+    sealed interface Element<Node> permits Vertex, Component {
+    }
+
+    record Vertex<Node>(Node node) implements Element<Node> {
+    }
+
+    record Component<Node>(Node head, List<Element<Node>> body)
+            implements Element<Node> {
+    }
+
+    private final List<Element<Node>> elements;
+
+    private WeakTopologicalOrder(List<Element<Node>> elements) {
+        this.elements = elements;
+    }
+
+    /**
+     * @return the elements of this WTO at the outermost level.
+     */
+    List<Element<Node>> getElements() {
+        return elements;
+    }
+
+    /**
+     * @return WTO of given CFG starting from its entry,
+     * which suits forward analyses.
+     */
+    static <Node> WeakTopologicalOrder<Node> of(CFG<Node> cfg) {
+        return of(cfg.getNodes(), cfg.getEntry(), cfg::getSuccsOf);
+    }
+
+    /**
+     * @return WTO of the reverse of given CFG, i.e., starting from
+     * its exit along predecessor edges, which suits backward analyses.
+     */
+    static <Node> WeakTopologicalOrder<Node> ofReverseCFG(CFG<Node> cfg) {
+        return of(cfg.getNodes(), cfg.getExit(), cfg::getPredsOf);
+    }
+
+    /**
+     * @return WTO of an arbitrary graph given by its nodes and successor
+     * function, starting from root. Nodes unreachable from root are
+     * ordered before the reachable ones, as they may only flow into them.
+     */
+    static <Node> WeakTopologicalOrder<Node> of(
+            Collection<Node> nodes, Node root,
+            Function<Node, ? extends Collection<Node>> succs) {
+        Builder<Node> builder = new Builder<>(nodes.size(), succs);
+        Deque<Element<Node>> partition = new ArrayDeque<>();
+        builder.visit(root, partition);
+        for (Node node : nodes) {
+            if (builder.dfn(node) == 0) {
+                builder.visit(node, partition);
+            }
+        }
+        return new WeakTopologicalOrder<>(List.copyOf(partition));
+    }
+
+    private static class Builder<Node> {
+
+        private final Function<Node, ? extends Collection<Node>> succs;
+
+        /**
+         * Depth-first numbers; 0 if not visited yet,
+         * {@link Integer#MAX_VALUE} if finished.
+         */
+        private final Map<Node, Integer> dfns;
+
+        private final Deque<Node> nodeStack = new ArrayDeque<>();
+
+        private int num = 0;
+
+        private Builder(int size, Function<Node, ? extends Collection<Node>> succs) {
+            this.succs = succs;
+            this.dfns = new HashMap<>(size * 4 / 3 + 1);
+        }
+
+        private int dfn(Node node) {
+            return dfns.getOrDefault(node, 0);
+        }
+
+        /**
+         * Frame of the (conceptually recursive) procedures of Bourdoncle's
+         * algorithm: visit(v) if component is false, otherwise component(v).
+         */
+        private class Frame {
+
+            private final Node node;
+
+            private final boolean component;
+
+            private final Iterator<Node> succIt;
+
+            /**
+             * Partition which the result of this frame is prepended to.
+             */
+            private final Deque<Element<Node>> target;
+
+            /**
+             * Body of the component being built (component frames only).
+             */
+            private final Deque<Element<Node>> body;
+
+            private int head;
+
+            private boolean loop;
+
+            private Frame(Node node, boolean component, Deque<Element<Node>> target) {
+                this.node = node;
+                this.component = component;
+                this.succIt = succs.apply(node).iterator();
+                this.target = target;
+                this.body = component ? new ArrayDeque<>() : null;
+            }
+
+            /**
+             * Receives the head returned by visiting a successor.
+             */
+            private void update(int min) {
+                if (min <= head) {
+                    head = min;
+                    loop = true;
+                }
+            }
+        }
+
+        private void visit(Node root, Deque<Element<Node>> partition) {
+            Deque<Frame> frames = new ArrayDeque<>();
+            frames.push(newVisitFrame(root, partition));
+            while (!frames.isEmpty()) {
+                Frame frame = frames.peek();
+                if (frame.succIt.hasNext()) {
+                    Node succ = frame.succIt.next();
+                    int d = dfn(succ);
+                    if (d == 0) {
+                        frames.push(newVisitFrame(succ,
+                                frame.component ? frame.body : frame.target));
+                    } else if (!frame.component) {
+                        frame.update(d);
+                    }
+                    continue;
+                }
+                frames.pop();
+                if (frame.component) {
+                    frame.target.addFirst(new Component<>(
+                            frame.node, List.copyOf(frame.body)));
+                    // the head of the visit of this node (computed before
+                    // the component) is returned to the parent
+                    returnTo(frames, frame.head);
+                    continue;
+                }
+                if (frame.head == dfn(frame.node)) {
+                    dfns.put(frame.node, Integer.MAX_VALUE);
+                    Node elem = nodeStack.pop();
+                    if (frame.loop) {
+                        while (elem != frame.node) {
+                            dfns.put(elem, 0);
+                            elem = nodeStack.pop();
+                        }
+                        Frame componentFrame = new Frame(frame.node, true, frame.target);
+                        componentFrame.head = frame.head;
+                        frames.push(componentFrame);
+                        continue;
+                    }
+                    frame.target.addFirst(new Vertex<>(frame.node));
+                }
+                returnTo(frames, frame.head);
+            }
+        }
+
+        private Frame newVisitFrame(Node node, Deque<Element<Node>> target) {
+            nodeStack.push(node);
+            dfns.put(node, ++num);
+            Frame frame = new Frame(node, false, target);
+            frame.head = num;
+            return frame;
+        }
+
+        private void returnTo(Deque<Frame> frames, int head) {
+            Frame parent = frames.peek();
+            if (parent != null && !parent.component) {
+                parent.update(head);
+            }
+        }
+    }
+}
@@ -23,13 +23,10 @@
  package pascal.taie.analysis.dataflow.solver;
 
  import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
- import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
  import pascal.taie.analysis.dataflow.fact.DataflowResult;
  import pascal.taie.analysis.graph.cfg.CFG;
  
- import java.util.ArrayList;
- import java.util.LinkedList;
- import java.util.Queue;
+ import java.util.BitSet;
  
  class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
  
@@ -50,31 +47,42 @@
  //        if (old_OUT ≠ OUT[B])
  //        Add all successors of B to Worklist
  
-         ArrayList<Node> worklist = new ArrayList<>();
+         // always pick the pending node that comes first in reverse
+         // postorder, so that the predecessors of a node (except
+         // those reaching it via back edges) are processed before it
+         NodeOrder<Node> order = NodeOrder.reversePostOrder(cfg);
+         OrderedWorkList<Node> workList = new OrderedWorkList<>(order);
  
          for (Node node : cfg) {
              if (!cfg.isEntry(node)) {
-                 worklist.add(node);
+                 workList.add(node);
              }
          }
  
-         while (!worklist.isEmpty()) {
-             Node node = worklist.remove(0);
-             Fact inFact = analysis.newInitialFact();
+         // facts are updated in place, as they only grow during solving:
+         // meeting into the stored IN gives the same as meeting into a new
+         // fact, and a node visited before is transferred again only if
+         // its IN changed
+         BitSet visited = new BitSet(order.size());
+         while (!workList.isEmpty()) {
+             Node node = workList.poll();
+             countVisit();
+             Fact inFact = result.getInFact(node);
+             boolean inChanged = false;
              for (Node pred : cfg.getPredsOf(node)) {
-                 analysis.meetInto(result.getOutFact(pred), inFact);
+                 inChanged |= meetInto(result.getOutFact(pred), inFact);
              }
-             result.setInFact(node, inFact);
- 
-             Fact outFact = result.getOutFact(node);
-             boolean changed = analysis.transferNode(node, inFact, outFact);
-             result.setOutFact(node, outFact);
+             int pos = order.positionOf(node);
+             if (!inChanged && visited.get(pos)) {
+                 continue;
+             }
+             visited.set(pos);
  
+             boolean changed = analysis.transferNode(
+                     node, inFact, result.getOutFact(node));
              if (changed){
                  for (Node succ : cfg.getSuccsOf(node)) {
-                     if (!worklist.contains(succ)) {
-                         worklist.add(succ);
-                     }
+                     workList.add(succ);
                  }
              }
          }
@@ -82,7 +90,41 @@
  
      @Override
      protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-         throw new UnsupportedOperationException();
+         // mirror of doSolveForward(): only the predecessors of a node
+         // whose IN fact changed are re-processed, and pending nodes are
+         // picked in reverse postorder of the reverse CFG
+         NodeOrder<Node> order = NodeOrder.reversePostOrderOnReverseCFG(cfg);
+         OrderedWorkList<Node> workList = new OrderedWorkList<>(order);
+ 
+         for (Node node : cfg) {
+             if (!cfg.isExit(node)) {
+                 workList.add(node);
+             }
+         }
+ 
+         BitSet visited = new BitSet(order.size());
+         while (!workList.isEmpty()) {
+             Node node = workList.poll();
+             countVisit();
+             Fact outFact = result.getOutFact(node);
+             boolean outChanged = false;
+             for (Node succ : cfg.getSuccsOf(node)) {
+                 outChanged |= meetInto(result.getInFact(succ), outFact);
+             }
+             int pos = order.positionOf(node);
+             if (!outChanged && visited.get(pos)) {
+                 continue;
+             }
+             visited.set(pos);
+ 
+             boolean changed = analysis.transferNode(
+                     node, result.getInFact(node), outFact);
+ 
+             if (changed) {
+                 for (Node pred : cfg.getPredsOf(node)) {
+                     workList.add(pred);
+                 }
+             }
+         }
      }
  }
- 
\ No newline at end of file
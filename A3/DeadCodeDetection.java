@@ -25,153 +25,127 @@
  import pascal.taie.analysis.MethodAnalysis;
  import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
  import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
- import pascal.taie.analysis.dataflow.analysis.constprop.Value;
  import pascal.taie.analysis.dataflow.fact.DataflowResult;
  import pascal.taie.analysis.dataflow.fact.SetFact;
- import pascal.taie.analysis.graph.cfg.CFG;
+ import pascal.taie.analysis.dataflow.solver.BudgetExceededException;
  import pascal.taie.analysis.graph.cfg.CFGBuilder;
- import pascal.taie.analysis.graph.cfg.Edge;
  import pascal.taie.config.AnalysisConfig;
  import pascal.taie.ir.IR;
  import pascal.taie.ir.exp.*;
  import pascal.taie.ir.exp.RValue;
- import pascal.taie.ir.stmt.AssignStmt;
- import pascal.taie.ir.stmt.If;
  import pascal.taie.ir.stmt.Stmt;
- import pascal.taie.ir.stmt.SwitchStmt;
  
  import java.util.*;
+ import java.util.function.BiConsumer;
  
  
  public class DeadCodeDetection extends MethodAnalysis {
  
      public static final String ID = "deadcode";
  
+     /**
+      * Computes the results of constant propagation and live variable
+      * analysis for the IRs on which they have not been run before.
+      * When solving them exhausts the solving budget of the current
+      * thread (see {@code SolverBudget}), e.g., when run by
+      * {@code StreamingAnalysisDriver}, their conservative results are
+      * used instead.
+      */
+     private final ConstantPropagation constantPropagation;
+ 
+     private final LiveVariableAnalysis liveVariableAnalysis;
+ 
+     /**
+      * Whether to also find the assignments which only become dead when
+      * other dead assignments are removed. Configured by boolean option
+      * "cascade" (false by default).
+      */
+     private final boolean cascade;
+ 
      public DeadCodeDetection(AnalysisConfig config) {
          super(config);
+         cascade = getOptions().has("cascade") &&
+                 getOptions().getBoolean("cascade");
+         // with boolean option "conditional", the branches that are never
+         // taken are found while solving constant propagation on demand
+         constantPropagation = new ConstantPropagation(
+                 getOptions().has("conditional") ?
+                         new AnalysisConfig(ConstantPropagation.ID,
+                                 "conditional", getOptions().getBoolean("conditional")) :
+                         new AnalysisConfig(ConstantPropagation.ID));
+         liveVariableAnalysis = new LiveVariableAnalysis(
+                 new AnalysisConfig(LiveVariableAnalysis.ID));
+     }
+ 
+     /**
+      * Reasons why a statement is dead.
+      */
+     public enum Reason {
+         /**
+          * The statement is unreachable in the control-flow graph.
+          */
+         UNREACHABLE,
+         /**
+          * The statement is only reachable via branches which are never
+          * taken as their conditions are constant.
+          */
+         DEAD_BRANCH,
+         /**
+          * The statement assigns a variable which is not live afterwards,
+          * and has no side effect.
+          */
+         DEAD_ASSIGNMENT,
      }
  
      @Override
      public Set<Stmt> analyze(IR ir) {
-         // obtain CFG
-         CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
-         // obtain result of constant propagation
-         DataflowResult<Stmt, CPFact> constants =
-                 ir.getResult(ConstantPropagation.ID);
-         // obtain result of live variable analysis
-         DataflowResult<Stmt, SetFact<Var>> liveVars =
-                 ir.getResult(LiveVariableAnalysis.ID);
-         // keep statements (dead code) sorted in the resulting set
-         Set<Stmt> deadCode = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
-         // TODO - finish me
-         // Your task is to recognize dead code in ir and add it to deadCode
- 
-         //// unreachable code
- 
-         // control-flow unreachable code
-         // 从方法入口开始，遍历 CFG 并标记可达语句。
-         // 当遍历结束时，那些没有被标记的语句就是控制流不可达的。
- 
-         // unreachable branch
-         // 预先对被检测代码应用常量传播分析，通过它来告诉我们条件值是否为常量，
-         // 然后在遍历 CFG 时，我们不进入相应的不可达分支。
- 
-         //// dead assignment
-         //我们需要预先对被检测代码施用活跃变量分析。
-         // 对于一个赋值语句，如果它等号左侧的变量（LHS 变量）是一个无用变量（换句话说，not live），
-         // 那么我们可以把它标记为一个无用赋值。
- 
- 
-         Set<Stmt> reachable = new HashSet<>();
-         Set<Stmt> visit = new HashSet<>();
-         Queue<Stmt> workList = new LinkedList<>();
- 
-         reachable.add(cfg.getExit());
-         workList.add(cfg.getEntry());
- 
-         while (!workList.isEmpty()) {
-             Stmt stmt = workList.poll();
-             if(visit.contains(stmt)){
-                 continue;
-             }
-             visit.add(stmt);
- 
-             if (stmt instanceof AssignStmt){
-                 RValue rvalue = ((AssignStmt) stmt).getRValue();
-                 LValue lvalue = ((AssignStmt) stmt).getLValue();
-                 SetFact<Var> liveVarsOut = liveVars.getOutFact(stmt);
-                 if ( hasNoSideEffect(rvalue) && !liveVarsOut.contains((Var) lvalue)){
-                     // dead code
-                 }
-                 else {
-                     reachable.add(stmt);
-                 }
-             }
-             else{
-                 reachable.add(stmt);
-             }
+         // the results of constant propagation and live variable analysis
+         // are read from the IR, or computed on demand if absent
+         return new DeadCodeEngine(ir,
+                 this::getConstants, this::getLiveVars, cascade).detect();
+     }
  
+     /**
+      * Performs given action on each dead statement of given IR, in the
+      * order of their indexes, together with the reason why it is dead.
+      */
+     public void forEachDeadStmt(IR ir, BiConsumer<Stmt, Reason> action) {
+         new DeadCodeEngine(ir, this::getConstants, this::getLiveVars, cascade)
+                 .forEachDeadStmt(action);
+     }
  
-             if (stmt instanceof If) {
-                 Value evaluated = ConstantPropagation.evaluate(
-                         ((If) stmt).getCondition(), constants.getInFact(stmt));
-                 if (evaluated.isConstant()) {
-                     int value = evaluated.getConstant();
-                     for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
-                         Stmt target = edge.getTarget();
-                         Edge.Kind kind = edge.getKind();
-                         if (value == 0 && kind == Edge.Kind.IF_FALSE){
-                             workList.add(target);
-                         }
-                         if (value != 0 && kind == Edge.Kind.IF_TRUE) {
-                             workList.add(target);
-                         }
-                     }
-                 }
-                 else{
-                     for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
-                         workList.add(edge.getTarget());
-                     }
-                 }
-             }
-             else if (stmt instanceof SwitchStmt){
-                 Value evaluated = ConstantPropagation.evaluate(
-                         ((SwitchStmt) stmt).getVar(), constants.getInFact(stmt));
-                 if (evaluated.isConstant()){
-                     int value = evaluated.getConstant();
-                     if(((SwitchStmt) stmt).getCaseValues().contains(value)){
-                         int index = ((SwitchStmt) stmt).getCaseValues().indexOf(value);
-                         workList.add(((SwitchStmt) stmt).getTarget(index));
-                     }
-                     else{
-                         workList.add(((SwitchStmt) stmt).getDefaultTarget());
-                     }
-                 }
-                 else{
-                     for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
-                         workList.add(edge.getTarget());
-                     }
-                 }
-             }
-             else {
-                 for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
-                     workList.add(edge.getTarget());
-                 }
+     private DataflowResult<Stmt, CPFact> getConstants(IR ir) {
+         DataflowResult<Stmt, CPFact> constants = ir.getResult(ConstantPropagation.ID);
+         if (constants == null) {
+             try {
+                 constants = constantPropagation.analyze(ir);
+             } catch (BudgetExceededException e) {
+                 constants = constantPropagation.conservativeResult(
+                         ir.getResult(CFGBuilder.ID));
              }
+             ir.storeResult(ConstantPropagation.ID, constants);
          }
+         return constants;
+     }
  
-         for (Stmt stmt : cfg.getNodes()) {
-             if (!reachable.contains(stmt)) {
-                 deadCode.add(stmt);
+     private DataflowResult<Stmt, SetFact<Var>> getLiveVars(IR ir) {
+         DataflowResult<Stmt, SetFact<Var>> liveVars = ir.getResult(LiveVariableAnalysis.ID);
+         if (liveVars == null) {
+             try {
+                 liveVars = liveVariableAnalysis.analyze(ir);
+             } catch (BudgetExceededException e) {
+                 liveVars = liveVariableAnalysis.conservativeResult(
+                         ir.getResult(CFGBuilder.ID));
              }
+             ir.storeResult(LiveVariableAnalysis.ID, liveVars);
          }
-         return deadCode;
+         return liveVars;
      }
  
      /**
       * @return true if given RValue has no side effect, otherwise false.
       */
-     private static boolean hasNoSideEffect(RValue rvalue) {
+     static boolean hasNoSideEffect(RValue rvalue) {
          // new expression modifies the heap
          if (rvalue instanceof NewExp ||
                  // cast may trigger ClassCastException
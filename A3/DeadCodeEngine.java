@@ -0,0 +1,385 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConditionalCPResult;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.analysis.constprop.Value;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.defuse.DefUse;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.AssignStmt;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.SwitchStmt;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Finds the dead code of one IR for {@link DeadCodeDetection} in a single
+ * traversal of the CFG, which skips unreachable branches and recognizes
+ * dead assignments at the same time.
+ * <p>
+ * Statements are identified by {@link Stmt#getIndex()}, so the sets of
+ * visited and live statements are bit sets and the work-list is an
+ * array; the entry of the CFG takes the index after the statements.
+ * The results of constant propagation and live variable analysis are
+ * obtained only when the first branch or the first candidate of dead
+ * assignment is reached, so that they are never computed for the
+ * methods that do not need them.
+ */
+final class DeadCodeEngine {
+
+    private final IR ir;
+
+    private final CFG<Stmt> cfg;
+
+    private final List<Stmt> stmts;
+
+    private final Function<IR, DataflowResult<Stmt, CPFact>> constantsProvider;
+
+    private final Function<IR, DataflowResult<Stmt, SetFact<Var>>> liveVarsProvider;
+
+    /**
+     * Whether dead assignments are found by {@link #removeDeadAssignments}
+     * instead of by the result of live variable analysis.
+     */
+    private final boolean cascade;
+
+    private DataflowResult<Stmt, CPFact> constants;
+
+    private DataflowResult<Stmt, SetFact<Var>> liveVars;
+
+    /**
+     * @param constantsProvider computes the result of constant propagation
+     *                          on given IR, called at most once
+     * @param liveVarsProvider  computes the result of live variable
+     *                          analysis on given IR, called at most once
+     * @param cascade           whether to find dead assignments by
+     *                          {@link #removeDeadAssignments}, in which case
+     *                          live variable analysis is not needed
+     */
+    DeadCodeEngine(IR ir,
+                   Function<IR, DataflowResult<Stmt, CPFact>> constantsProvider,
+                   Function<IR, DataflowResult<Stmt, SetFact<Var>>> liveVarsProvider,
+                   boolean cascade) {
+        this.ir = ir;
+        this.cfg = ir.getResult(CFGBuilder.ID);
+        this.stmts = ir.getStmts();
+        this.constantsProvider = constantsProvider;
+        this.liveVarsProvider = liveVarsProvider;
+        this.cascade = cascade;
+    }
+
+    /**
+     * @return the dead statements, ordered by their indexes.
+     */
+    Set<Stmt> detect() {
+        BitSet live = new BitSet(stmts.size());
+        traverseExecutable(live);
+        live.flip(0, stmts.size());
+        return new IndexedStmtSet(stmts, live);
+    }
+
+    /**
+     * Performs given action on each dead statement, in the order of their
+     * indexes, together with the reason why it is dead.
+     */
+    void forEachDeadStmt(BiConsumer<Stmt, DeadCodeDetection.Reason> action) {
+        int n = stmts.size();
+        BitSet live = new BitSet(n);
+        BitSet executable = traverseExecutable(live);
+        // statements reachable regardless of branch conditions,
+        // computed only if some statement is not executable
+        BitSet reachable = null;
+        for (int i = live.nextClearBit(0); i < n; i = live.nextClearBit(i + 1)) {
+            DeadCodeDetection.Reason reason;
+            if (executable.get(i)) {
+                reason = DeadCodeDetection.Reason.DEAD_ASSIGNMENT;
+            } else {
+                if (reachable == null) {
+                    reachable = traverse(cfg::getSuccsOf, null);
+                }
+                reason = reachable.get(i) ?
+                        DeadCodeDetection.Reason.DEAD_BRANCH :
+                        DeadCodeDetection.Reason.UNREACHABLE;
+            }
+            action.accept(stmts.get(i), reason);
+        }
+    }
+
+    /**
+     * Traverses the executable statements.
+     *
+     * @param live the live statements, i.e., the ones which are executable
+     *             and are not dead assignments, are added to it
+     * @return the executable statements.
+     */
+    private BitSet traverseExecutable(BitSet live) {
+        BitSet executable = traverse(this::getExecutableSuccs, live);
+        if (cascade) {
+            removeDeadAssignments(live);
+        }
+        return executable;
+    }
+
+    /**
+     * Traverses the CFG from its entry along given successor function.
+     *
+     * @param live if not null, the statements which are reached and are
+     *             not dead assignments are added to it
+     * @return the statements reached by the traversal.
+     */
+    private BitSet traverse(Function<Stmt, ? extends Iterable<Stmt>> succs,
+                            BitSet live) {
+        int n = stmts.size();
+        // statements that have been added to the work-list
+        BitSet visited = new BitSet(n + 1);
+        // each node is added at most once, so the work-list never wraps
+        int[] workList = new int[n + 1];
+        int head = 0, tail = 0;
+        visited.set(n);
+        workList[tail++] = n;
+        while (head < tail) {
+            int index = workList[head++];
+            Stmt stmt = index == n ? cfg.getEntry() : stmts.get(index);
+            if (live != null && index < n &&
+                    (cascade || !isDeadAssignment(stmt))) {
+                live.set(index);
+            }
+            for (Stmt succ : succs.apply(stmt)) {
+                if (cfg.isExit(succ)) {
+                    // the exit is never dead and has no successors
+                    continue;
+                }
+                int succIndex = cfg.isEntry(succ) ? n : succ.getIndex();
+                if (!visited.get(succIndex)) {
+                    visited.set(succIndex);
+                    workList[tail++] = succIndex;
+                }
+            }
+        }
+        return visited;
+    }
+
+    private boolean isDeadAssignment(Stmt stmt) {
+        return isRemovableAssignment(stmt) &&
+                !getLiveVars().getOutFact(stmt).contains(
+                        (Var) ((AssignStmt<?, ?>) stmt).getLValue());
+    }
+
+    /**
+     * @return true if given statement assigns a variable and has no side
+     * effect, so that it is dead if the variable is not used afterwards.
+     */
+    private static boolean isRemovableAssignment(Stmt stmt) {
+        return stmt instanceof AssignStmt<?, ?> assign &&
+                assign.getLValue() instanceof Var &&
+                DeadCodeDetection.hasNoSideEffect(assign.getRValue());
+    }
+
+    /**
+     * Removes the dead assignments from given live statements, including
+     * the ones which only become dead when other dead assignments are
+     * removed, e.g., {@code b} in {@code b = c; a = b;} if {@code a} is
+     * never used.
+     * <p>
+     * Each removable assignment keeps the number of live statements which
+     * use its definition (according to the def-use chains). An assignment
+     * whose count drops to zero is dead, and the counts of the definitions
+     * of its operands are decreased in turn. Each def-use pair is visited
+     * at most twice, so this takes time linear in the size of the chains,
+     * instead of one round of live variable analysis per level of the
+     * cascade.
+     */
+    private void removeDeadAssignments(BitSet live) {
+        DefUse defUse = DefUse.of(cfg);
+        int n = stmts.size();
+        // number of live uses of each removable live assignment,
+        // or -1 for the other statements
+        int[] useCounts = new int[n];
+        Arrays.fill(useCounts, -1);
+        // each assignment becomes dead at most once
+        int[] workList = new int[n];
+        int head = 0, tail = 0;
+        for (int i = live.nextSetBit(0); i >= 0; i = live.nextSetBit(i + 1)) {
+            Stmt stmt = stmts.get(i);
+            if (isRemovableAssignment(stmt)) {
+                int count = 0;
+                for (Stmt use : defUse.getUses(stmt)) {
+                    if (live.get(use.getIndex())) {
+                        ++count;
+                    }
+                }
+                useCounts[i] = count;
+                if (count == 0) {
+                    workList[tail++] = i;
+                }
+            }
+        }
+        while (head < tail) {
+            int index = workList[head++];
+            Stmt dead = stmts.get(index);
+            live.clear(index);
+            List<RValue> uses = dead.getUses();
+            for (int u = 0; u < uses.size(); ++u) {
+                if (!(uses.get(u) instanceof Var var) ||
+                        uses.subList(0, u).contains(var)) {
+                    // each operand is handled once, as it is counted once
+                    continue;
+                }
+                for (Stmt def : defUse.getDefs(dead, var)) {
+                    if (!cfg.isEntry(def)) {
+                        int defIndex = def.getIndex();
+                        if (useCounts[defIndex] > 0 &&
+                                --useCounts[defIndex] == 0) {
+                            workList[tail++] = defIndex;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the successors of given node which may be executed
+     * according to the values of its branch condition.
+     */
+    private Iterable<Stmt> getExecutableSuccs(Stmt stmt) {
+        if ((stmt instanceof If || stmt instanceof SwitchStmt) &&
+                getConstants() instanceof ConditionalCPResult conditional) {
+            // the executable edges have been found by the analysis
+            return conditional.getExecutableSuccsOf(stmt);
+        }
+        if (stmt instanceof If ifStmt) {
+            Value cond = ConstantPropagation.evaluate(
+                    ifStmt.getCondition(), getConstants().getInFact(stmt));
+            if (cond.isConstant()) {
+                Edge.Kind taken = cond.getConstant() != 0 ?
+                        Edge.Kind.IF_TRUE : Edge.Kind.IF_FALSE;
+                for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
+                    if (edge.getKind() == taken) {
+                        return List.of(edge.getTarget());
+                    }
+                }
+                return List.of();
+            }
+        } else if (stmt instanceof SwitchStmt switchStmt) {
+            Value var = ConstantPropagation.evaluate(
+                    switchStmt.getVar(), getConstants().getInFact(stmt));
+            if (var.isConstant()) {
+                int i = switchStmt.getCaseValues().indexOf(var.getConstant());
+                return List.of(i >= 0 ? switchStmt.getTarget(i)
+                        : switchStmt.getDefaultTarget());
+            }
+        }
+        return cfg.getSuccsOf(stmt);
+    }
+
+    private DataflowResult<Stmt, CPFact> getConstants() {
+        if (constants == null) {
+            constants = constantsProvider.apply(ir);
+        }
+        return constants;
+    }
+
+    private DataflowResult<Stmt, SetFact<Var>> getLiveVars() {
+        if (liveVars == null) {
+            liveVars = liveVarsProvider.apply(ir);
+        }
+        return liveVars;
+    }
+
+    /**
+     * Read-only set of statements given by a bit set of their indexes,
+     * which iterates over the statements in the order of their indexes.
+     */
+    private static class IndexedStmtSet extends AbstractSet<Stmt> {
+
+        private final List<Stmt> stmts;
+
+        private final BitSet indexes;
+
+        private final int size;
+
+        private IndexedStmtSet(List<Stmt> stmts, BitSet indexes) {
+            this.stmts = stmts;
+            this.indexes = indexes;
+            this.size = indexes.cardinality();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (o instanceof Stmt stmt) {
+                int i = stmt.getIndex();
+                return i >= 0 && i < stmts.size() &&
+                        indexes.get(i) && stmts.get(i) == stmt;
+            }
+            return false;
+        }
+
+        @Override
+        public Iterator<Stmt> iterator() {
+            return new Iterator<>() {
+
+                private int next = indexes.nextSetBit(0);
+
+                @Override
+                public boolean hasNext() {
+                    return next >= 0;
+                }
+
+                @Override
+                public Stmt next() {
+                    if (next < 0) {
+                        throw new NoSuchElementException();
+                    }
+                    Stmt stmt = stmts.get(next);
+                    next = indexes.nextSetBit(next + 1);
+                    return stmt;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.analysis.MethodAnalysisDriver;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Detects the dead code of many methods in parallel, and streams it
+ * into a report as each method completes.
+ * <p>
+ * For each IR, a worker builds the CFG, runs {@link DeadCodeDetection}
+ * (which computes constant propagation and live variable analysis on
+ * demand), hands the dead statements of the method to the report, and
+ * then drops the results it computed from the IR, so that the memory
+ * used by intermediate results is bounded by the number of workers
+ * rather than by the size of the program. Results which existed in the
+ * IR before the sweep are kept.
+ * <p>
+ * The report receives the dead statements of one method consecutively,
+ * in the order of their indexes, and is never called by two workers at
+ * the same time, so it does not need to be thread-safe.
+ */
+public class DeadCodeSweep extends MethodAnalysisDriver {
+
+    /**
+     * A dead statement in the report.
+     *
+     * @param method method containing the statement
+     * @param index  index of the statement in the IR of the method
+     * @param stmt   the statement
+     * @param reason why the statement is dead
+     */
+    public record Entry(JMethod method, int index, Stmt stmt,
+                        DeadCodeDetection.Reason reason) {
+    }
+
+    /**
+     * IDs of the results which the sweep may compute for an IR.
+     */
+    private static final List<String> INTERMEDIATE_RESULTS = List.of(
+            CFGBuilder.ID, ConstantPropagation.ID, LiveVariableAnalysis.ID);
+
+    private final CFGBuilder cfgBuilder;
+
+    private final DeadCodeDetection deadCodeDetection;
+
+    private final Consumer<? super Entry> report;
+
+    /**
+     * @param parallelism number of worker threads
+     * @param report      receiver of the dead statements
+     */
+    public DeadCodeSweep(int parallelism, Consumer<? super Entry> report) {
+        super(List.of(), parallelism);
+        this.cfgBuilder = new CFGBuilder(new AnalysisConfig(CFGBuilder.ID));
+        this.deadCodeDetection = new DeadCodeDetection(
+                new AnalysisConfig(DeadCodeDetection.ID));
+        this.report = report;
+    }
+
+    public DeadCodeSweep(Consumer<? super Entry> report) {
+        this(Runtime.getRuntime().availableProcessors(), report);
+    }
+
+    @Override
+    protected void analyze(IR ir) {
+        List<String> computed = new ArrayList<>(INTERMEDIATE_RESULTS.size());
+        for (String id : INTERMEDIATE_RESULTS) {
+            if (!ir.hasResult(id)) {
+                computed.add(id);
+            }
+        }
+        if (computed.contains(CFGBuilder.ID)) {
+            ir.storeResult(CFGBuilder.ID, cfgBuilder.analyze(ir));
+        }
+        List<Entry> entries = new ArrayList<>();
+        JMethod method = ir.getMethod();
+        deadCodeDetection.forEachDeadStmt(ir, (stmt, reason) ->
+                entries.add(new Entry(method, stmt.getIndex(), stmt, reason)));
+        synchronized (this) {
+            entries.forEach(report);
+        }
+        computed.forEach(ir::clearResult);
+    }
+}
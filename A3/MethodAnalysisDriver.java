@@ -0,0 +1,146 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis;
+
+import pascal.taie.World;
+import pascal.taie.ir.IR;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs a sequence of method analyses on many IRs in parallel.
+ * <p>
+ * The IRs are split among the workers of a fork-join pool. Each IR is
+ * handled by exactly one task, which runs all analyses on the IR
+ * in the given order, so a later analysis can read the result of an
+ * earlier one from the IR (e.g., deadcode reads the results of
+ * constprop and livevar). Since the results of different IRs are
+ * stored in different IRs, no two threads ever write to the same
+ * result slot, and the results are identical to the ones of a
+ * sequential run, regardless of the scheduling.
+ * <p>
+ * This requires the analyses not to keep per-IR mutable state in their
+ * fields, as the same analysis instances are shared by all workers.
+ */
+public class MethodAnalysisDriver {
+
+    /**
+     * Maximum number of IRs analyzed by a task without being split.
+     * Kept small as the sizes of methods vary a lot, so that idle
+     * workers can steal the remaining work of a busy one.
+     */
+    private static final int THRESHOLD = 4;
+
+    protected final List<? extends MethodAnalysis> analyses;
+
+    private final int parallelism;
+
+    /**
+     * @param analyses    analyses to run on each IR, in execution order
+     * @param parallelism number of worker threads
+     */
+    public MethodAnalysisDriver(List<? extends MethodAnalysis> analyses,
+                                int parallelism) {
+        this.analyses = List.copyOf(analyses);
+        this.parallelism = parallelism;
+    }
+
+    public MethodAnalysisDriver(List<? extends MethodAnalysis> analyses) {
+        this(analyses, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Runs the analyses on all non-abstract, non-native methods of
+     * the application classes.
+     */
+    public void runOnApplication() {
+        // IRs are built here, on the calling thread, as the frontend
+        // is not required to support building IRs concurrently
+        List<IR> irs = World.get()
+                .getClassHierarchy()
+                .applicationClasses()
+                .map(JClass::getDeclaredMethods)
+                .flatMap(Collection::stream)
+                .filter(m -> !m.isAbstract() && !m.isNative())
+                .map(JMethod::getIR)
+                .toList();
+        run(irs);
+    }
+
+    /**
+     * Runs the analyses on given IRs and stores the results in the IRs.
+     */
+    public void run(List<IR> irs) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new AnalysisTask(irs, 0, irs.size()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Runs all analyses on given IR. Called by the workers, once per IR.
+     */
+    protected void analyze(IR ir) {
+        for (MethodAnalysis analysis : analyses) {
+            Object result = analysis.analyze(ir);
+            if (result != null) {
+                ir.storeResult(analysis.getId(), result);
+            }
+        }
+    }
+
+    private class AnalysisTask extends RecursiveAction {
+
+        private final List<IR> irs;
+
+        private final int from;
+
+        private final int to;
+
+        private AnalysisTask(List<IR> irs, int from, int to) {
+            this.irs = irs;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                for (int i = from; i < to; ++i) {
+                    analyze(irs.get(i));
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new AnalysisTask(irs, from, mid),
+                        new AnalysisTask(irs, mid, to));
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis;
+
+import pascal.taie.analysis.dataflow.analysis.ConservativeDataflowAnalysis;
+import pascal.taie.analysis.dataflow.solver.BudgetExceededException;
+import pascal.taie.analysis.dataflow.solver.SolverBudget;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.ir.IR;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * {@link MethodAnalysisDriver} which hands the result of each analysis
+ * on each method to a consumer as soon as it is available, instead of
+ * only after all methods are done.
+ * <p>
+ * Solving a data-flow analysis on one method is limited by a budget
+ * of node visits and time (see {@link SolverBudget}), so that a single
+ * pathological method cannot stall the whole run. When the budget is
+ * exhausted, the driver falls back to the conservative result of the
+ * analysis (see {@link ConservativeDataflowAnalysis}), which is sound
+ * but imprecise, and stores it in the IR as usual, so later analyses
+ * of the method still work. Analyses without a conservative result run
+ * under the budget as well, as they may solve data-flow analyses on
+ * demand; they are expected to fall back to the conservative results
+ * of those analyses (as {@code DeadCodeDetection} does), and their
+ * results are then marked as not converged. If such an analysis is
+ * aborted by the budget instead, its result is null.
+ * <p>
+ * The consumer is called by the worker threads, so it must be
+ * thread-safe. The results of one method are delivered in the order
+ * of the analyses, while the methods are delivered in no particular
+ * order.
+ */
+public class StreamingAnalysisDriver extends MethodAnalysisDriver {
+
+    /**
+     * Result of an analysis on a method.
+     *
+     * @param ir        IR of the method
+     * @param analysis  ID of the analysis
+     * @param result    the result, which may be null if the analysis
+     *                  does not produce one
+     * @param converged false if solving the method exceeded its budget,
+     *                  and result is the conservative result of the analysis
+     *                  (or is based on conservative results, or is null)
+     */
+    public record MethodResult(IR ir, String analysis,
+                               Object result, boolean converged) {
+    }
+
+    private final long maxVisits;
+
+    private final long maxNanos;
+
+    private final Consumer<? super MethodResult> consumer;
+
+    /**
+     * @param analyses    analyses to run on each IR, in execution order
+     * @param parallelism number of worker threads
+     * @param maxVisits   maximum number of node visits when solving
+     *                    an analysis on a method, or {@link Long#MAX_VALUE}
+     *                    for no limit
+     * @param timeLimit   maximum time of solving an analysis on a method,
+     *                    or null for no limit
+     * @param consumer    receiver of the results
+     */
+    public StreamingAnalysisDriver(List<? extends MethodAnalysis> analyses,
+                                   int parallelism,
+                                   long maxVisits, Duration timeLimit,
+                                   Consumer<? super MethodResult> consumer) {
+        super(analyses, parallelism);
+        this.maxVisits = maxVisits;
+        this.maxNanos = timeLimit != null ? timeLimit.toNanos() : Long.MAX_VALUE;
+        this.consumer = consumer;
+    }
+
+    public StreamingAnalysisDriver(List<? extends MethodAnalysis> analyses,
+                                   long maxVisits, Duration timeLimit,
+                                   Consumer<? super MethodResult> consumer) {
+        this(analyses, Runtime.getRuntime().availableProcessors(),
+                maxVisits, timeLimit, consumer);
+    }
+
+    @Override
+    protected void analyze(IR ir) {
+        for (MethodAnalysis analysis : analyses) {
+            Object result;
+            // whether the budget was exhausted, either aborting the
+            // analysis or making it fall back to conservative results
+            // of the analyses it solved on demand
+            boolean[] exhausted = {false};
+            try {
+                result = SolverBudget.run(maxVisits, maxNanos, () -> {
+                    Object r = analysis.analyze(ir);
+                    exhausted[0] = SolverBudget.isExhausted();
+                    return r;
+                });
+            } catch (BudgetExceededException e) {
+                result = analysis instanceof ConservativeDataflowAnalysis<?, ?> ?
+                        conservativeResult(analysis, ir) : null;
+                exhausted[0] = true;
+            }
+            boolean converged = !exhausted[0];
+            if (result != null) {
+                ir.storeResult(analysis.getId(), result);
+            }
+            consumer.accept(new MethodResult(ir, analysis.getId(), result, converged));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object conservativeResult(MethodAnalysis analysis, IR ir) {
+        return ((ConservativeDataflowAnalysis<Object, ?>) analysis)
+                .conservativeResult(ir.getResult(CFGBuilder.ID));
+    }
+}
@@ -23,14 +23,19 @@
 package pascal.taie.analysis.graph.callgraph;
 
 import pascal.taie.World;
+import pascal.taie.ir.IR;
 import pascal.taie.ir.proginfo.MethodRef;
 import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.classes.ClassHierarchy;
 import pascal.taie.language.classes.JClass;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.classes.Subsignature;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
 
 
 /**
@@ -38,12 +43,50 @@ import java.util.*;
  */
 class CHABuilder implements CGBuilder<Invoke, JMethod> {
 
+    /**
+     * Guards building IRs, as the frontend is not required to support
+     * building IRs concurrently. Not needed when all IRs are built before
+     * the analyses (option --pre-build-ir), as getIR() then only returns
+     * the built IR.
+     */
+    private static final Object IR_LOCK = new Object();
+
+    /**
+     * Number of threads resolving call sites; 1 for the sequential
+     * algorithm.
+     */
+    private final int parallelism;
+
     private ClassHierarchy hierarchy;
 
+    /**
+     * Memoizes dispatch and the targets of virtual calls, which are
+     * shared by all call sites of the same callee.
+     */
+    private DispatchTable dispatchTable;
+
+    /**
+     * Whether the IRs of all methods have been built up front, so that
+     * the parallel scan can get them without holding {@link #IR_LOCK}.
+     */
+    private boolean irsPrebuilt;
+
+    CHABuilder(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    CHABuilder() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
     @Override
     public CallGraph<Invoke, JMethod> build() {
         hierarchy = World.get().getClassHierarchy();
-        return buildCallGraph(World.get().getMainMethod());
+        dispatchTable = new DispatchTable(hierarchy);
+        irsPrebuilt = World.get().getOptions().isPreBuildIR();
+        JMethod entry = World.get().getMainMethod();
+        return parallelism > 1 ?
+                buildCallGraphInParallel(entry) : buildCallGraph(entry);
     }
 
     private CallGraph<Invoke, JMethod> buildCallGraph(JMethod entry) {
@@ -87,6 +130,95 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
 
     }
 
+    /**
+     * Builds the same call graph as {@link #buildCallGraph}, in two phases.
+     * <p>
+     * First, the reachable methods are discovered and their call sites are
+     * resolved in parallel: each newly reachable method is scanned by a
+     * fork-join task, which forks a task for each callee that it adds to
+     * a concurrent set of reachable methods. Then the work-list algorithm
+     * of {@link #buildCallGraph} is replayed on one thread, with the edges
+     * of each method inserted as a batch from the first phase. As the
+     * replay adds methods and edges in the same order as the sequential
+     * algorithm, the resulting call graph is identical to its result.
+     */
+    private CallGraph<Invoke, JMethod> buildCallGraphInParallel(JMethod entry) {
+        Map<JMethod, List<Edge<Invoke, JMethod>>> edges = new ConcurrentHashMap<>();
+        Set<JMethod> reachable = ConcurrentHashMap.newKeySet();
+        reachable.add(entry);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new ScanTask(null, entry, reachable, edges));
+        } finally {
+            pool.shutdown();
+        }
+        DefaultCallGraph callGraph = new DefaultCallGraph();
+        callGraph.addEntryMethod(entry);
+        Queue<JMethod> workList = new ArrayDeque<>();
+        workList.add(entry);
+        while (!workList.isEmpty()) {
+            JMethod m = workList.poll();
+            if (callGraph.addReachableMethod(m)) {
+                for (Edge<Invoke, JMethod> edge : edges.get(m)) {
+                    callGraph.addEdge(edge);
+                    workList.add(edge.getCallee());
+                }
+            }
+        }
+        return callGraph;
+    }
+
+    /**
+     * Resolves the call sites of a reachable method, in the order in which
+     * {@link #buildCallGraph} adds the edges, and scans its newly reachable
+     * callees in forked tasks. A task completes when all tasks forked by
+     * it complete, so the root task completes when all reachable methods
+     * are scanned.
+     */
+    private class ScanTask extends CountedCompleter<Void> {
+
+        private final JMethod method;
+
+        private final Set<JMethod> reachable;
+
+        private final Map<JMethod, List<Edge<Invoke, JMethod>>> edges;
+
+        private ScanTask(ScanTask parent, JMethod method, Set<JMethod> reachable,
+                         Map<JMethod, List<Edge<Invoke, JMethod>>> edges) {
+            super(parent);
+            this.method = method;
+            this.reachable = reachable;
+            this.edges = edges;
+        }
+
+        @Override
+        public void compute() {
+            IR ir;
+            if (irsPrebuilt) {
+                ir = method.getIR();
+            } else {
+                synchronized (IR_LOCK) {
+                    ir = method.getIR();
+                }
+            }
+            List<Edge<Invoke, JMethod>> methodEdges = new ArrayList<>();
+            for (Stmt stmt : ir) {
+                if (stmt instanceof Invoke callSite) {
+                    CallKind kind = CallGraphs.getCallKind(callSite);
+                    for (JMethod callee : resolve(callSite)) {
+                        methodEdges.add(new Edge<>(kind, callSite, callee));
+                        if (callee != null && reachable.add(callee)) {
+                            addToPendingCount(1);
+                            new ScanTask(this, callee, reachable, edges).fork();
+                        }
+                    }
+                }
+            }
+            edges.put(method, methodEdges);
+            tryComplete();
+        }
+    }
+
     /**
      * Resolves call targets (callees) of a call site via CHA.
      */
@@ -127,23 +259,9 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
                 break;
             case VIRTUAL:
             case INTERFACE:
-                Queue<JClass> queue = new ArrayDeque<>();
-                queue.add(jclass);
-                while (!queue.isEmpty()) {
-                    JClass cPrime = queue.poll();
-                    JMethod dispatched = dispatch(cPrime, subsignature);
-                    if (dispatched != null) {
-                        T.add(dispatched);
-                    }
-                    if(cPrime.isInterface()){
-                        hierarchy.getDirectSubinterfacesOf(cPrime).forEach(queue::add);
-                        hierarchy.getDirectImplementorsOf(cPrime).forEach(queue::add);
-                    }
-                    else{
-                        hierarchy.getDirectSubclassesOf(cPrime).forEach(queue::add);
-                    }
-                }
-                break;
+                // the subtypes are enumerated by HierarchyIndex, once per
+                // (declaring class, subsignature)
+                return dispatchTable.resolveVirtual(jclass, subsignature);
         }
         return T;
 
@@ -162,13 +280,7 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
         //                          has the same name and descriptor as m
         // = Dispatch(c', m), otherwise: where c' is the superclass of c.
 
-        JMethod m = jclass.getDeclaredMethod(subsignature);
-        if (m != null && !m.isAbstract()) {
-            return m;
-        } else if (jclass.getSuperClass() == null) {
-            return null;
-        }
-        return dispatch(jclass.getSuperClass(), subsignature);
+        return dispatchTable.dispatch(jclass, subsignature);
 
     }
 }
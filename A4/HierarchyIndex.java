@@ -0,0 +1,244 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.ClassNames;
+import pascal.taie.language.classes.JClass;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Precomputed index of a class hierarchy for subtype queries.
+ * <p>
+ * Classes (excluding interfaces) are numbered in preorder of the tree
+ * formed by their superclasses, so that the subclasses of a class take
+ * a contiguous range of numbers starting from its own number. For each
+ * interface, the numbers of the classes implementing it (directly, via
+ * subinterfaces, or via superclasses) and of its subinterfaces are kept
+ * in bit sets. Whether a type is a subtype of another is then answered
+ * in constant time, and the subtypes of a type are enumerated without
+ * traversing the hierarchy.
+ * <p>
+ * The index is a snapshot of the hierarchy, i.e., it does not see the
+ * classes added to the hierarchy after it is built. Clients should check
+ * {@link #contains(JClass)} and fall back to the hierarchy for classes
+ * which the index does not know.
+ */
+public class HierarchyIndex {
+
+    private final ClassHierarchy hierarchy;
+
+    /**
+     * Class -> preorder number; interface -> interface number.
+     */
+    private final Map<JClass, Integer> numbers;
+
+    /**
+     * Classes in preorder.
+     */
+    private final JClass[] classes;
+
+    private final List<JClass> classList;
+
+    /**
+     * ends[n]: the number after the last subclass of the class numbered n.
+     */
+    private final int[] ends;
+
+    private final JClass[] interfaces;
+
+    /**
+     * For each interface, numbers of the classes implementing it.
+     */
+    private final BitSet[] implementors;
+
+    /**
+     * For each interface, numbers of the interfaces extending it,
+     * including itself.
+     */
+    private final BitSet[] subinterfaces;
+
+    /**
+     * Subtypes of each interface, materialized on first query.
+     */
+    private final List<JClass>[] interfaceSubtypes;
+
+    @SuppressWarnings("unchecked")
+    public HierarchyIndex(ClassHierarchy hierarchy) {
+        this.hierarchy = hierarchy;
+        List<JClass> allClasses = new ArrayList<>();
+        List<JClass> allInterfaces = new ArrayList<>();
+        hierarchy.allClasses().forEach(c ->
+                (c.isInterface() ? allInterfaces : allClasses).add(c));
+        numbers = new HashMap<>((allClasses.size() + allInterfaces.size()) * 4 / 3 + 1);
+        classes = new JClass[allClasses.size()];
+        ends = new int[allClasses.size() + 1];
+        numberClasses(allClasses);
+        classList = List.of(classes);
+        interfaces = allInterfaces.toArray(new JClass[0]);
+        for (int i = 0; i < interfaces.length; ++i) {
+            numbers.put(interfaces[i], i);
+        }
+        implementors = new BitSet[interfaces.length];
+        subinterfaces = new BitSet[interfaces.length];
+        for (int i = 0; i < interfaces.length; ++i) {
+            computeClosure(i);
+        }
+        interfaceSubtypes = new List[interfaces.length];
+    }
+
+    /**
+     * Numbers the classes in preorder of the superclass tree, and computes
+     * the ends of their subclass ranges.
+     */
+    private void numberClasses(List<JClass> allClasses) {
+        Set<JClass> classSet = new HashSet<>(allClasses);
+        int next = 0;
+        // iterative DFS, as class hierarchies can be deep
+        Deque<JClass> stack = new ArrayDeque<>();
+        Deque<Iterator<JClass>> iterators = new ArrayDeque<>();
+        for (JClass root : allClasses) {
+            // classes whose superclasses are not in the hierarchy
+            // are roots as well as java.lang.Object
+            if (root.getSuperClass() != null &&
+                    classSet.contains(root.getSuperClass())) {
+                continue;
+            }
+            numbers.put(root, next);
+            classes[next++] = root;
+            stack.push(root);
+            iterators.push(hierarchy.getDirectSubclassesOf(root).iterator());
+            while (!stack.isEmpty()) {
+                Iterator<JClass> it = iterators.peek();
+                if (it.hasNext()) {
+                    JClass sub = it.next();
+                    if (!sub.isInterface() && !numbers.containsKey(sub)) {
+                        numbers.put(sub, next);
+                        classes[next++] = sub;
+                        stack.push(sub);
+                        iterators.push(hierarchy.getDirectSubclassesOf(sub).iterator());
+                    }
+                } else {
+                    ends[numbers.get(stack.pop())] = next;
+                    iterators.pop();
+                }
+            }
+        }
+        if (next != classes.length) {
+            throw new IllegalStateException("Inconsistent class hierarchy: " +
+                    (classes.length - next) + " classes are not subclasses of their superclasses");
+        }
+    }
+
+    /**
+     * Computes the implementors and subinterfaces of the interface
+     * numbered i, after those of its subinterfaces.
+     */
+    private void computeClosure(int i) {
+        if (implementors[i] != null) {
+            return;
+        }
+        BitSet impls = new BitSet(classes.length);
+        BitSet subs = new BitSet(interfaces.length);
+        subs.set(i);
+        JClass iface = interfaces[i];
+        for (JClass impl : hierarchy.getDirectImplementorsOf(iface)) {
+            int n = numbers.get(impl);
+            impls.set(n, ends[n]);
+        }
+        for (JClass sub : hierarchy.getDirectSubinterfacesOf(iface)) {
+            int j = numbers.get(sub);
+            computeClosure(j);
+            impls.or(implementors[j]);
+            subs.or(subinterfaces[j]);
+        }
+        implementors[i] = impls;
+        subinterfaces[i] = subs;
+    }
+
+    /**
+     * @return true if given class or interface is in the index.
+     */
+    public boolean contains(JClass jclass) {
+        return numbers.containsKey(jclass);
+    }
+
+    /**
+     * @return true if sub is a subtype of sup (including sup itself),
+     * otherwise false. Classes that are not in the index are not subtypes
+     * of any type.
+     */
+    public boolean isSubtype(JClass sub, JClass sup) {
+        Integer subNumber = numbers.get(sub);
+        Integer supNumber = numbers.get(sup);
+        if (subNumber == null || supNumber == null) {
+            return false;
+        }
+        if (sup.isInterface()) {
+            return sub.isInterface() ?
+                    subinterfaces[supNumber].get(subNumber) :
+                    implementors[supNumber].get(subNumber);
+        }
+        if (sub.isInterface()) {
+            return sup.getName().equals(ClassNames.OBJECT);
+        }
+        return supNumber <= subNumber && subNumber < ends[supNumber];
+    }
+
+    /**
+     * @return all subtypes of given class or interface, including itself.
+     * For a class, these are its subclasses; for an interface, these are
+     * its subinterfaces and the classes implementing it.
+     */
+    public List<JClass> getSubtypesOf(JClass jclass) {
+        Integer number = numbers.get(jclass);
+        if (number == null) {
+            return List.of();
+        }
+        if (!jclass.isInterface()) {
+            return classList.subList(number, ends[number]);
+        }
+        List<JClass> subtypes = interfaceSubtypes[number];
+        if (subtypes == null) {
+            BitSet subs = subinterfaces[number];
+            BitSet impls = implementors[number];
+            List<JClass> list = new ArrayList<>(subs.cardinality() + impls.cardinality());
+            subs.stream().forEach(i -> list.add(interfaces[i]));
+            impls.stream().forEach(n -> list.add(classes[n]));
+            // immutable lists are safely published via final fields
+            interfaceSubtypes[number] = subtypes = List.copyOf(list);
+        }
+        return subtypes;
+    }
+}
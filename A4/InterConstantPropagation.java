@@ -51,7 +51,12 @@ public class InterConstantPropagation extends
 
     public InterConstantPropagation(AnalysisConfig config) {
         super(config);
-        cp = new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID));
+        // the fact representation of intra-procedural constant
+        // propagation follows option "fact-impl" of this analysis
+        cp = new ConstantPropagation(getOptions().has("fact-impl") ?
+                new AnalysisConfig(ConstantPropagation.ID,
+                        "fact-impl", getOptions().getString("fact-impl")) :
+                new AnalysisConfig(ConstantPropagation.ID));
     }
 
     @Override
@@ -116,7 +121,7 @@ public class InterConstantPropagation extends
         // TODO - finish me
         //对于这种边，edge transfer 函数会将实参（argument）在调用点中的值传递给被调用函数的形参（parameter）。
         // 具体来说，edge transfer 首先从调用点的 OUT fact 中获取实参的值，然后返回一个新的 fact，这个 fact 把形参映射到它对应的实参的值。
-        CPFact res = new CPFact();
+        CPFact res = cp.newInitialFact();
         Stmt src = edge.getSource();
         Stmt tgt = edge.getTarget();
         if (src instanceof Invoke invoke) {
@@ -138,7 +143,7 @@ public class InterConstantPropagation extends
         // edge transfer 函数将被调用方法的返回值传递给调用点等号左侧的变量。
         // 具体来说，它从被调用方法的 exit 节点的 OUT fact 中获取返回值（可能有多个，你需要思考一下该怎么处理），
         // 然后返回一个将调用点等号左侧的变量映射到返回值的 fact。
-        CPFact res = new CPFact();
+        CPFact res = cp.newInitialFact();
 
         if (edge.getCallSite() instanceof Invoke invoke) {
             Var var = invoke.getResult();
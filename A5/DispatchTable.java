@@ -0,0 +1,228 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.ir.proginfo.MethodRef;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.Subsignature;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.language.type.Type;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Memoized method dispatch over a class hierarchy.
+ * <p>
+ * Caches both the dispatch of a subsignature on a class, i.e., the
+ * method that a call on an instance of the class invokes, and the
+ * targets of a virtual call, i.e., the dispatch on all subtypes of the
+ * declaring class of the callee. Call sites that share the same
+ * (class, subsignature) pair are then resolved by a single lookup,
+ * and the superclass chain of each class is walked at most once per
+ * subsignature.
+ * <p>
+ * The subtypes of declaring classes are enumerated by a
+ * {@link HierarchyIndex} built along with the table, so the table should
+ * be created once the hierarchy is complete. Classes that the index does
+ * not know (e.g., classes added to the hierarchy later) are handled by
+ * walking the hierarchy.
+ * <p>
+ * The table is safe to use from multiple threads.
+ */
+public class DispatchTable {
+
+    private final ClassHierarchy hierarchy;
+
+    private final HierarchyIndex index;
+
+    /**
+     * (class, subsignature) -> dispatched method; empty if dispatch fails.
+     */
+    private final Map<Key, Optional<JMethod>> dispatchCache =
+            new ConcurrentHashMap<>();
+
+    /**
+     * (declaring class, subsignature) -> targets of virtual calls.
+     */
+    private final Map<Key, Set<JMethod>> targetCache =
+            new ConcurrentHashMap<>();
+
+    public DispatchTable(ClassHierarchy hierarchy) {
+        this.hierarchy = hierarchy;
+        this.index = new HierarchyIndex(hierarchy);
+    }
+
+    private record Key(JClass jclass, Subsignature subsignature) {
+    }
+
+    /**
+     * Looks up the target method based on given class and method subsignature,
+     * i.e., the first non-abstract method with the subsignature declared by
+     * the class or its superclasses.
+     *
+     * @return the dispatched target method, or null if no satisfying method
+     * can be found.
+     */
+    public JMethod dispatch(JClass jclass, Subsignature subsignature) {
+        Optional<JMethod> cached = dispatchCache.get(new Key(jclass, subsignature));
+        if (cached != null) {
+            return cached.orElse(null);
+        }
+        // walk up the superclasses until a cached class or a declaration
+        // is found; all classes on the way dispatch to the same method
+        List<JClass> path = new ArrayList<>();
+        JMethod target = null;
+        for (JClass c = jclass; c != null; c = c.getSuperClass()) {
+            if (c != jclass) {
+                cached = dispatchCache.get(new Key(c, subsignature));
+                if (cached != null) {
+                    target = cached.orElse(null);
+                    break;
+                }
+            }
+            path.add(c);
+            JMethod m = c.getDeclaredMethod(subsignature);
+            if (m != null && !m.isAbstract()) {
+                target = m;
+                break;
+            }
+        }
+        Optional<JMethod> result = Optional.ofNullable(target);
+        for (JClass c : path) {
+            dispatchCache.putIfAbsent(new Key(c, subsignature), result);
+        }
+        return target;
+    }
+
+    /**
+     * @return the targets of a virtual (or interface) call whose callee is
+     * declared in given class with given subsignature, i.e., the dispatched
+     * methods of the class and all its subclasses, subinterfaces and
+     * implementors. The returned set is unmodifiable and shared among
+     * all callers.
+     */
+    public Set<JMethod> resolveVirtual(JClass declaringClass, Subsignature subsignature) {
+        Key key = new Key(declaringClass, subsignature);
+        Set<JMethod> targets = targetCache.get(key);
+        if (targets == null) {
+            // not computeIfAbsent(), which would lock the entry during the
+            // traversal; concurrent threads may compute the same targets,
+            // but only one of them is kept
+            targets = Collections.unmodifiableSet(
+                    computeVirtualTargets(declaringClass, subsignature));
+            Set<JMethod> previous = targetCache.putIfAbsent(key, targets);
+            if (previous != null) {
+                targets = previous;
+            }
+        }
+        return targets;
+    }
+
+    private Set<JMethod> computeVirtualTargets(
+            JClass declaringClass, Subsignature subsignature) {
+        Set<JMethod> targets = new HashSet<>();
+        for (JClass subtype : getSubtypesOf(declaringClass)) {
+            JMethod dispatched = dispatch(subtype, subsignature);
+            if (dispatched != null) {
+                targets.add(dispatched);
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * @return all subtypes of given class or interface, including itself,
+     * from the index if it knows the class, otherwise by traversing
+     * the hierarchy.
+     */
+    private Iterable<JClass> getSubtypesOf(JClass jclass) {
+        if (index.contains(jclass)) {
+            return index.getSubtypesOf(jclass);
+        }
+        Set<JClass> visited = new HashSet<>();
+        Queue<JClass> queue = new ArrayDeque<>();
+        visited.add(jclass);
+        queue.add(jclass);
+        while (!queue.isEmpty()) {
+            JClass c = queue.poll();
+            if (c.isInterface()) {
+                for (JClass sub : hierarchy.getDirectSubinterfacesOf(c)) {
+                    if (visited.add(sub)) {
+                        queue.add(sub);
+                    }
+                }
+                for (JClass impl : hierarchy.getDirectImplementorsOf(c)) {
+                    if (visited.add(impl)) {
+                        queue.add(impl);
+                    }
+                }
+            } else {
+                for (JClass sub : hierarchy.getDirectSubclassesOf(c)) {
+                    if (visited.add(sub)) {
+                        queue.add(sub);
+                    }
+                }
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Resolves the callee of a call site on a receiver object of given
+     * type, as {@link CallGraphs#resolveCallee(Type, Invoke)} does.
+     * <p>
+     * For a virtual call on an object whose class is a subtype of the
+     * declaring class of the callee (checked by {@link HierarchyIndex}),
+     * the callee is found by the memoized {@link #dispatch}; the other
+     * calls, and the callees which are inherited from interfaces
+     * (i.e., default methods), are resolved by {@link CallGraphs}.
+     */
+    public JMethod resolveCallee(Type type, Invoke callSite) {
+        if ((callSite.isVirtual() || callSite.isInterface()) &&
+                type instanceof ClassType classType) {
+            JClass recvClass = classType.getJClass();
+            MethodRef methodRef = callSite.getMethodRef();
+            if (recvClass != null &&
+                    index.isSubtype(recvClass, methodRef.getDeclaringClass())) {
+                JMethod callee = dispatch(recvClass, methodRef.getSubsignature());
+                if (callee != null) {
+                    return callee;
+                }
+            }
+        }
+        return CallGraphs.resolveCallee(type, callSite);
+    }
+}
@@ -25,9 +25,9 @@ package pascal.taie.analysis.pta.ci;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
-import pascal.taie.analysis.graph.callgraph.CallGraphs;
 import pascal.taie.analysis.graph.callgraph.CallKind;
 import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
+import pascal.taie.analysis.graph.callgraph.DispatchTable;
 import pascal.taie.analysis.graph.callgraph.Edge;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.core.heap.Obj;
@@ -54,6 +54,11 @@ class Solver {
 
     private ClassHierarchy hierarchy;
 
+    /**
+     * Memoized dispatch of receiver objects on the class hierarchy.
+     */
+    private DispatchTable dispatchTable;
+
     Solver(HeapModel heapModel) {
         this.heapModel = heapModel;
     }
@@ -75,6 +80,7 @@ class Solver {
         callGraph = new DefaultCallGraph();
         stmtProcessor = new StmtProcessor();
         hierarchy = World.get().getClassHierarchy();
+        dispatchTable = new DispatchTable(hierarchy);
         // initialize main method
         JMethod main = World.get().getMainMethod();
         callGraph.addEntryMethod(main);
@@ -349,7 +355,7 @@ class Solver {
      */
     private JMethod resolveCallee(Obj recv, Invoke callSite) {
         Type type = recv != null ? recv.getType() : null;
-        return CallGraphs.resolveCallee(type, callSite);
+        return dispatchTable.resolveCallee(type, callSite);
     }
 
     CIPTAResult getResult() {
@@ -27,6 +27,7 @@ import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
 import pascal.taie.analysis.graph.callgraph.CallGraphs;
 import pascal.taie.analysis.graph.callgraph.CallKind;
+import pascal.taie.analysis.graph.callgraph.DispatchTable;
 import pascal.taie.analysis.graph.callgraph.Edge;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.PointerAnalysisResultImpl;
@@ -61,6 +62,11 @@ class Solver {
 
     private PointerFlowGraph pointerFlowGraph;
 
+    /**
+     * Memoized dispatch of receiver objects on the class hierarchy.
+     */
+    private DispatchTable dispatchTable;
+
     private WorkList workList;
 
     private PointerAnalysisResult result;
@@ -82,6 +88,7 @@ class Solver {
         callGraph = new CSCallGraph(csManager);
         pointerFlowGraph = new PointerFlowGraph();
         workList = new WorkList();
+        dispatchTable = new DispatchTable(World.get().getClassHierarchy());
         // process program entry, i.e., main method
         Context defContext = contextSelector.getEmptyContext();
         JMethod main = World.get().getMainMethod();
@@ -377,7 +384,7 @@ class Solver {
      */
     private JMethod resolveCallee(CSObj recv, Invoke callSite) {
         Type type = recv != null ? recv.getObject().getType() : null;
-        return CallGraphs.resolveCallee(type, callSite);
+        return dispatchTable.resolveCallee(type, callSite);
     }
 
     PointerAnalysisResult getResult() {
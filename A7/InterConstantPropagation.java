@@ -65,7 +65,12 @@ public class InterConstantPropagation extends
 
     public InterConstantPropagation(AnalysisConfig config) {
         super(config);
-        cp = new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID));
+        // the fact representation of intra-procedural constant
+        // propagation follows option "fact-impl" of this analysis
+        cp = new ConstantPropagation(getOptions().has("fact-impl") ?
+                new AnalysisConfig(ConstantPropagation.ID,
+                        "fact-impl", getOptions().getString("fact-impl")) :
+                new AnalysisConfig(ConstantPropagation.ID));
         aliasMap = new HashMap<>();
         staticLoadFields = new HashMap<>();
         staticStoreFields = new HashMap<>();
@@ -183,7 +188,7 @@ public class InterConstantPropagation extends
     protected CPFact transferCallEdge(CallEdge<Stmt> edge, CPFact callSiteOut) {
         // TODO - finish me
         // 将实参（argument）在调用点中的值传递给被调用函数的形参（parameter）
-        CPFact res = new CPFact();
+        CPFact res = cp.newInitialFact();
         if (edge.getSource() instanceof Invoke invoke) {
             IR ir = edge.getCallee().getIR();
             for (int i = 0; i < ir.getParams().size(); i++) {
@@ -201,7 +206,7 @@ public class InterConstantPropagation extends
     protected CPFact transferReturnEdge(ReturnEdge<Stmt> edge, CPFact returnOut) {
         // TODO - finish me
         // 将被调用方法的返回值传递给调用点等号左侧的变量
-        CPFact res = new CPFact();
+        CPFact res = cp.newInitialFact();
 
         if (edge.getCallSite() instanceof Invoke invoke) {
             Var lvar = invoke.getResult();
@@ -27,6 +27,7 @@ import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
 import pascal.taie.analysis.graph.callgraph.CallGraphs;
 import pascal.taie.analysis.graph.callgraph.CallKind;
+import pascal.taie.analysis.graph.callgraph.DispatchTable;
 import pascal.taie.analysis.graph.callgraph.Edge;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.PointerAnalysisResultImpl;
@@ -78,6 +79,11 @@ public class Solver {
 
     private PointerFlowGraph pointerFlowGraph;
 
+    /**
+     * Memoized dispatch of receiver objects on the class hierarchy.
+     */
+    private DispatchTable dispatchTable;
+
     private WorkList workList;
 
     private TaintAnalysiss taintAnalysis;
@@ -117,6 +123,7 @@ public class Solver {
         callGraph = new CSCallGraph(csManager);
         pointerFlowGraph = new PointerFlowGraph();
         workList = new WorkList();
+        dispatchTable = new DispatchTable(World.get().getClassHierarchy());
         taintAnalysis = new TaintAnalysiss(this);
         // process program entry, i.e., main method
         Context defContext = contextSelector.getEmptyContext();
@@ -418,7 +425,7 @@ public class Solver {
      */
     private JMethod resolveCallee(CSObj recv, Invoke callSite) {
         Type type = recv != null ? recv.getObject().getType() : null;
-        return CallGraphs.resolveCallee(type, callSite);
+        return dispatchTable.resolveCallee(type, callSite);
     }
 
     public PointerAnalysisResult getResult() {
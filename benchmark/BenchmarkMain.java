@@ -0,0 +1,127 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.bench;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import pascal.taie.analysis.dataflow.solver.SolverMetrics;
+import pascal.taie.ir.IR;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Runs {@link SolverBenchmark} with the GC profiler and writes the
+ * results as JSON to {@code benchmark-results/<label>.json}, where
+ * label is the first argument (e.g., the commit id), so that results
+ * of different commits can be compared side by side.
+ * Further arguments are regular expressions selecting benchmarks
+ * (all by default).
+ * <p>
+ * With {@code --visits} before the label, runs instead each
+ * configuration of {@link SolverBenchmark} once with solver metrics on,
+ * and writes the node visits and rounds of the solvers as CSV to
+ * {@code benchmark-results/<label>-visits.csv}. Unlike the throughput,
+ * the visits are deterministic, so they compare solvers (e.g.,
+ * {@code wto} against {@code worklist}) independently of the machine.
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws IOException, RunnerException {
+        boolean visits = args.length > 0 && args[0].equals("--visits");
+        int first = visits ? 1 : 0;
+        String label = args.length > first ? args[first] : "current";
+        Path resultDir = Files.createDirectories(Path.of("benchmark-results"));
+        if (visits) {
+            countVisits(resultDir.resolve(label + "-visits.csv"));
+            return;
+        }
+        OptionsBuilder builder = new OptionsBuilder();
+        if (args.length > first + 1) {
+            for (int i = first + 1; i < args.length; ++i) {
+                builder.include(args[i]);
+            }
+        } else {
+            builder.include(SolverBenchmark.class.getSimpleName());
+        }
+        Options options = builder
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultDir.resolve(label + ".json").toString())
+                .build();
+        new Runner(options).run();
+    }
+
+    /**
+     * Solves every combination of the {@link Param} values of
+     * {@link SolverBenchmark} once, and writes the metrics summed over
+     * all solvings of each combination. The sparse engine does not run
+     * a solver, thus it has no rows.
+     */
+    private static void countVisits(Path file) throws IOException {
+        SolverMetrics metrics = SolverMetrics.get();
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+            out.println("shape,scale,config,nodes,visits,rounds,transfers");
+            for (String shape : paramValues("shape")) {
+                for (String scale : paramValues("scale")) {
+                    IR ir = SolverBenchmark.loadIR(
+                            SyntheticProgram.Shape.valueOf(shape),
+                            Integer.parseInt(scale));
+                    for (String config : paramValues("config")) {
+                        metrics.clear();
+                        SolverBenchmark.newAnalysis(config, true).analyze(ir);
+                        if (metrics.getRecords().isEmpty()) {
+                            continue;
+                        }
+                        long nodes = 0, visitCount = 0, rounds = 0, transfers = 0;
+                        for (SolverMetrics.Record r : metrics.getRecords()) {
+                            nodes += r.getNodes();
+                            visitCount += r.getVisits();
+                            rounds += r.getRounds();
+                            transfers += r.getTransfers();
+                        }
+                        out.printf("%s,%s,%s,%d,%d,%d,%d%n", shape, scale, config,
+                                nodes, visitCount, rounds, transfers);
+                    }
+                }
+            }
+        }
+        metrics.clear();
+    }
+
+    private static String[] paramValues(String field) {
+        try {
+            return SolverBenchmark.class.getField(field)
+                    .getAnnotation(Param.class).value();
+        } catch (NoSuchFieldException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
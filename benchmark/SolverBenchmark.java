@@ -0,0 +1,196 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.MethodAnalysis;
+import pascal.taie.analysis.dataflow.analysis.LiveVariableAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.language.classes.JClass;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of solving intra-procedural data-flow analyses on the CFGs
+ * of {@link SyntheticProgram}s, for each pair of analysis and solver.
+ * Run with the GC profiler (see {@link BenchmarkMain}) to also measure
+ * the allocation rate.
+ * <p>
+ * The warmup, measurement and fork settings are fixed here, so that
+ * the results of different commits are comparable.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class SolverBenchmark {
+
+    /**
+     * Scales of the generated programs; must cover the values of {@link #scale}.
+     */
+    private static final int[] SCALES = {1, 4};
+
+    private static boolean worldBuilt;
+
+    @Param({"LOOP_NEST", "WIDE_SWITCH", "STRAIGHT_LINE", "MANY_VARS"})
+    public SyntheticProgram.Shape shape;
+
+    @Param({"1", "4"})
+    public int scale;
+
+    /**
+     * Analysis (with optional fact implementation) and solver, i.e.,
+     * {@code <analysis>[-<fact-impl>]/<solver>}, where solver "sparse"
+     * means the sparse engine of constant propagation.
+     */
+    @Param({
+            "livevar/worklist",
+            "livevar/iterative",
+            "livevar/block",
+            "livevar/wto",
+            "livevar-bitset/worklist",
+            "constprop/worklist",
+            "constprop/iterative",
+            "constprop/block",
+            "constprop/wto",
+            "constprop-compact/worklist",
+            "constprop-persistent/worklist",
+            "constprop/sparse",
+    })
+    public String config;
+
+    private MethodAnalysis analysis;
+
+    private IR ir;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ir = loadIR(shape, scale);
+        analysis = newAnalysis(config, false);
+    }
+
+    @Benchmark
+    public Object solve() {
+        return analysis.analyze(ir);
+    }
+
+    /**
+     * @return IR of the synthetic program of given shape and scale,
+     * with its CFG built.
+     */
+    static IR loadIR(SyntheticProgram.Shape shape, int scale) {
+        buildWorld();
+        JClass jclass = World.get().getClassHierarchy()
+                .getClass(SyntheticProgram.className(shape, scale));
+        IR ir = jclass.getDeclaredMethod("run").getIR();
+        if (!ir.hasResult(CFGBuilder.ID)) {
+            CFGBuilder builder = new CFGBuilder(new AnalysisConfig(CFGBuilder.ID));
+            ir.storeResult(CFGBuilder.ID, builder.analyze(ir));
+        }
+        return ir;
+    }
+
+    /**
+     * @param config  value of {@link #config}
+     * @param metrics whether the solver records its metrics
+     */
+    static MethodAnalysis newAnalysis(String config, boolean metrics) {
+        String[] analysisAndSolver = config.split("/");
+        String[] analysisAndFact = analysisAndSolver[0].split("-");
+        String id = analysisAndFact[0];
+        String solver = analysisAndSolver[1];
+        List<Object> options = new ArrayList<>();
+        if (analysisAndFact.length > 1) {
+            options.add("fact-impl");
+            options.add(analysisAndFact[1]);
+        }
+        if (solver.equals("sparse")) {
+            options.add("sparse");
+            options.add(true);
+        } else {
+            options.add("solver");
+            options.add(solver);
+        }
+        if (metrics) {
+            options.add("metrics");
+            options.add(true);
+        }
+        AnalysisConfig analysisConfig = new AnalysisConfig(id, options.toArray());
+        return switch (id) {
+            case LiveVariableAnalysis.ID -> new LiveVariableAnalysis(analysisConfig);
+            case ConstantPropagation.ID -> new ConstantPropagation(analysisConfig);
+            default -> throw new IllegalArgumentException("Unknown analysis: " + id);
+        };
+    }
+
+    /**
+     * Builds the world of all synthetic programs once per JVM, as it is
+     * shared by all trials in a fork.
+     */
+    private static synchronized void buildWorld() {
+        if (worldBuilt) {
+            return;
+        }
+        try {
+            Path dir = Files.createTempDirectory("taie-bench");
+            List<String> classes = new ArrayList<>();
+            for (SyntheticProgram.Shape shape : SyntheticProgram.Shape.values()) {
+                for (int scale : SCALES) {
+                    String name = SyntheticProgram.className(shape, scale);
+                    Files.writeString(dir.resolve(name + ".java"),
+                            SyntheticProgram.generate(shape, scale));
+                    classes.add(name);
+                }
+            }
+            Main.buildWorld("-pp", "-cp", dir.toString(),
+                    "--input-classes", String.join(",", classes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        worldBuilt = true;
+    }
+}
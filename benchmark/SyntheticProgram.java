@@ -0,0 +1,169 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.bench;
+
+/**
+ * Generator of synthetic Java programs whose CFGs stress data-flow
+ * solvers in different ways. Each program is a class with a single
+ * static method {@code int run(int n)}, written in plain Java 7 so that
+ * the frontend can read it from source.
+ */
+public final class SyntheticProgram {
+
+    /**
+     * Shapes of the generated methods.
+     */
+    public enum Shape {
+
+        /**
+         * Deeply nested loops, i.e., many back edges, which need many
+         * rounds to reach the fixed point.
+         */
+        LOOP_NEST,
+
+        /**
+         * A switch with many cases, i.e., nodes with many successors
+         * and a join with many predecessors.
+         */
+        WIDE_SWITCH,
+
+        /**
+         * A long sequence of assignments without branches.
+         */
+        STRAIGHT_LINE,
+
+        /**
+         * Many int variables which are all live (and not constant)
+         * in a loop, i.e., large facts.
+         */
+        MANY_VARS
+    }
+
+    private SyntheticProgram() {
+    }
+
+    /**
+     * @return name of the class generated for given shape and scale.
+     */
+    public static String className(Shape shape, int scale) {
+        StringBuilder sb = new StringBuilder();
+        for (String word : shape.name().split("_")) {
+            sb.append(word.charAt(0)).append(word.substring(1).toLowerCase());
+        }
+        return sb.append(scale).toString();
+    }
+
+    /**
+     * @return source code of the class for given shape and scale;
+     * the size of the method grows linearly with scale.
+     */
+    public static String generate(Shape shape, int scale) {
+        StringBuilder body = new StringBuilder();
+        switch (shape) {
+            case LOOP_NEST -> loopNest(body, 4 * scale);
+            case WIDE_SWITCH -> wideSwitch(body, 64 * scale);
+            case STRAIGHT_LINE -> straightLine(body, 512 * scale);
+            case MANY_VARS -> manyVars(body, 128 * scale);
+        }
+        return "public class " + className(shape, scale) + " {\n" +
+                "    public static int run(int n) {\n" +
+                body +
+                "    }\n" +
+                "}\n";
+    }
+
+    private static void loopNest(StringBuilder sb, int depth) {
+        line(sb, 2, "int s = 0;");
+        line(sb, 2, "int c = 1;");
+        for (int d = 0; d < depth; ++d) {
+            line(sb, 2 + d, "for (int i" + d + " = 0; i" + d + " < n; i" + d + "++) {");
+            line(sb, 3 + d, "s = s + i" + d + " * c;");
+            line(sb, 3 + d, "c = c + " + d + ";");
+        }
+        line(sb, 2 + depth, "if (s > n) { s = s - n; } else { s = s + 1; }");
+        for (int d = depth - 1; d >= 0; --d) {
+            line(sb, 3 + d, "c = c * 2;");
+            line(sb, 2 + d, "}");
+        }
+        line(sb, 2, "return s + c;");
+    }
+
+    private static void wideSwitch(StringBuilder sb, int cases) {
+        line(sb, 2, "int a = 0;");
+        line(sb, 2, "int b = 1;");
+        line(sb, 2, "int k = 2;");
+        line(sb, 2, "switch (n) {");
+        for (int c = 0; c < cases; ++c) {
+            line(sb, 3, "case " + c + ":");
+            line(sb, 4, "a = " + c + ";");
+            // half of the cases agree on b, so that it may stay constant
+            // on some paths and become NAC on others
+            line(sb, 4, "b = " + (c % 2 == 0 ? "a + 1" : "k") + ";");
+            line(sb, 4, "break;");
+        }
+        line(sb, 3, "default:");
+        line(sb, 4, "a = n;");
+        line(sb, 2, "}");
+        line(sb, 2, "return a + b + k;");
+    }
+
+    private static void straightLine(StringBuilder sb, int length) {
+        int vars = 8;
+        for (int v = 0; v < vars; ++v) {
+            line(sb, 2, "int v" + v + " = " + v + ";");
+        }
+        for (int i = 0; i < length; ++i) {
+            int v = i % vars;
+            int u = (i + 3) % vars;
+            String rhs = i % 5 == 0 ? "v" + u + " + n" : "v" + u + " + " + i;
+            line(sb, 2, "v" + v + " = " + rhs + ";");
+        }
+        StringBuilder sum = new StringBuilder("v0");
+        for (int v = 1; v < vars; ++v) {
+            sum.append(" + v").append(v);
+        }
+        line(sb, 2, "return " + sum + ";");
+    }
+
+    private static void manyVars(StringBuilder sb, int vars) {
+        for (int v = 0; v < vars; ++v) {
+            line(sb, 2, "int x" + v + " = " + v + ";");
+        }
+        line(sb, 2, "int i = 0;");
+        line(sb, 2, "while (i < n) {");
+        for (int v = 0; v < vars; ++v) {
+            line(sb, 3, "x" + v + " = x" + v + " + x" + (v + 1) % vars + ";");
+        }
+        line(sb, 3, "i = i + 1;");
+        line(sb, 2, "}");
+        StringBuilder sum = new StringBuilder("x0");
+        for (int v = 1; v < vars; ++v) {
+            sum.append(" + x").append(v);
+        }
+        line(sb, 2, "return " + sum + ";");
+    }
+
+    private static void line(StringBuilder sb, int indent, String code) {
+        sb.append("    ".repeat(indent)).append(code).append('\n');
+    }
+}
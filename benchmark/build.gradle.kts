@@ -0,0 +1,67 @@
+plugins {
+    java
+    application
+}
+
+repositories {
+    mavenCentral()
+}
+
+java {
+    toolchain {
+        languageVersion.set(JavaLanguageVersion.of(17))
+    }
+}
+
+val jmhVersion = "1.37"
+
+// Classes of the Tai-e assignment framework which the assignments are
+// written against (not the released Tai-e, whose API differs), i.e., its
+// compiled classes and library jars, given by
+// -PtaieClasspath=<path>[<path-separator><path>...].
+val taieClasspath = (findProperty("taieClasspath") as String?)
+    ?.split(File.pathSeparator)
+    ?: emptyList()
+
+dependencies {
+    implementation("org.openjdk.jmh:jmh-core:$jmhVersion")
+    annotationProcessor("org.openjdk.jmh:jmh-generator-annprocess:$jmhVersion")
+    implementation(files(taieClasspath))
+}
+
+// The solvers and analyses under benchmark: all of A2, plus the live
+// variable analysis of A1, whose other files are superseded by A2.
+val assignmentSources by tasks.registering(Sync::class) {
+    from("../A2") {
+        include("*.java")
+    }
+    from("../A1") {
+        include("AbstractGenKillAnalysis.java",
+                "LiveVariableAnalysis.java",
+                "VarBitSetFact.java")
+    }
+    into(layout.buildDirectory.dir("assignment-src"))
+}
+
+sourceSets {
+    main {
+        java {
+            setSrcDirs(listOf(projectDir))
+            srcDir(assignmentSources)
+            include("*.java")
+        }
+    }
+}
+
+tasks.withType<JavaCompile> {
+    options.encoding = "UTF-8"
+    doFirst {
+        if (taieClasspath.isEmpty()) {
+            throw GradleException("Tai-e is missing, set -PtaieClasspath")
+        }
+    }
+}
+
+application {
+    mainClass.set("pascal.taie.analysis.dataflow.bench.BenchmarkMain")
+}